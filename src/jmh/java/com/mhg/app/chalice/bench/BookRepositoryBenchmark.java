@@ -0,0 +1,69 @@
+package com.mhg.app.chalice.bench;
+
+import com.mhg.app.chalice.model.Book;
+import com.mhg.app.chalice.repository.BookNearCache;
+import com.mhg.app.chalice.repository.BookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Book lookups over {@value #BOOKS} stored books: {@link BookRepository#findById} reads and maps
+ * the RedisJSON document, {@link BookNearCache#findById} is the same read behind the local cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookRepositoryBenchmark {
+
+    private static final int BOOKS = 1000;
+
+    private BookRepository bookRepository;
+    private BookNearCache bookNearCache;
+    private List<Book> books;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(ChaliceState chalice) {
+        bookRepository = chalice.bean(BookRepository.class);
+        bookNearCache = chalice.bean(BookNearCache.class);
+        books = Fixtures.books(BOOKS);
+        bookRepository.saveAll(books);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        books.forEach(book -> bookRepository.deleteById(book.getId()));
+    }
+
+    @Benchmark
+    public Book findById() {
+        return bookRepository.findById(nextIsbn());
+    }
+
+    @Benchmark
+    public Book nearCacheFindById() {
+        return bookNearCache.findById(nextIsbn());
+    }
+
+    // walks the catalog in order, so every book is read once per BOOKS operations
+    private String nextIsbn() {
+        next = (next + 1) % BOOKS;
+        return books.get(next).getId();
+    }
+}
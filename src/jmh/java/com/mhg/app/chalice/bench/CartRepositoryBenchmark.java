@@ -0,0 +1,76 @@
+package com.mhg.app.chalice.bench;
+
+import com.mhg.app.chalice.model.Book;
+import com.mhg.app.chalice.model.Cart;
+import com.mhg.app.chalice.repository.CartRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * {@link CartRepository} round trips for carts of 1, 10 and 100 items: a MULTI/EXEC save, a
+ * JSON.GET by id and a full SSCAN + JSON.MGET walk over {@value #CARTS} stored carts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartRepositoryBenchmark {
+
+    private static final int CARTS = 200;
+
+    @Param({ "1", "10", "100" })
+    public int items;
+
+    private CartRepository cartRepository;
+    private List<Cart> carts;
+    private Cart cart;
+
+    @Setup(Level.Trial)
+    public void setUp(ChaliceState chalice) {
+        cartRepository = chalice.bean(CartRepository.class);
+        List<Book> books = Fixtures.books(items);
+        carts = IntStream.range(0, CARTS) //
+                .mapToObj(i -> Fixtures.cart("bench-cart-" + i, null, books, items)) //
+                .toList();
+        cartRepository.saveAll(carts);
+        cart = carts.get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cartRepository.deleteAll(carts);
+    }
+
+    @Benchmark
+    public Cart save() {
+        return cartRepository.save(cart);
+    }
+
+    @Benchmark
+    public Optional<Cart> findById() {
+        return cartRepository.findById(cart.getId());
+    }
+
+    @Benchmark
+    public Iterable<Cart> findAll() {
+        return cartRepository.findAll();
+    }
+}
@@ -0,0 +1,71 @@
+package com.mhg.app.chalice.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.google.gson.Gson;
+import com.mhg.app.chalice.model.Cart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart document (de)serialization with the Gson instance {@code CartRepository} uses against a
+ * default Jackson mapper, for carts of 1, 10 and 100 items. No Redis involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartSerializationBenchmark {
+
+    private static final Gson GSON = new Gson();
+    private static final ObjectMapper JACKSON = JsonMapper.builder().build();
+
+    @Param({ "1", "10", "100" })
+    public int items;
+
+    private Cart cart;
+    private String gsonJson;
+    private String jacksonJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        cart = Fixtures.cart("bench-cart", "bench-user", Fixtures.books(items), items);
+        gsonJson = GSON.toJson(cart);
+        jacksonJson = JACKSON.writeValueAsString(cart);
+    }
+
+    @Benchmark
+    public String gsonSerialize() {
+        return GSON.toJson(cart);
+    }
+
+    @Benchmark
+    public Cart gsonDeserialize() {
+        return GSON.fromJson(gsonJson, Cart.class);
+    }
+
+    @Benchmark
+    public String jacksonSerialize() throws JsonProcessingException {
+        return JACKSON.writeValueAsString(cart);
+    }
+
+    @Benchmark
+    public Cart jacksonDeserialize() throws JsonProcessingException {
+        return JACKSON.readValue(jacksonJson, Cart.class);
+    }
+}
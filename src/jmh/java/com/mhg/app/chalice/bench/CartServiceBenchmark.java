@@ -0,0 +1,100 @@
+package com.mhg.app.chalice.bench;
+
+import com.mhg.app.chalice.model.Book;
+import com.mhg.app.chalice.model.CartUpdate;
+import com.mhg.app.chalice.model.User;
+import com.mhg.app.chalice.repository.BookRepository;
+import com.mhg.app.chalice.repository.CartRepository;
+import com.mhg.app.chalice.repository.UserRepository;
+import com.mhg.app.chalice.service.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CartService#checkout} and {@link CartService#removeFromCart} on carts of 1, 10 and 50
+ * items. Both empty the cart they work on, so it is written again (and the user's library reset)
+ * before every invocation; that setup is not measured, and each operation takes long enough for
+ * the per-invocation overhead not to matter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartServiceBenchmark {
+
+    private static final int BOOKS = 100;
+    private static final String CART_ID = "bench-cart-service";
+
+    @State(Scope.Thread)
+    public static class FreshCart {
+
+        @Param({ "1", "10", "50" })
+        public int items;
+
+        private CartService cartService;
+        private CartRepository cartRepository;
+        private BookRepository bookRepository;
+        private UserRepository userRepository;
+        private List<Book> books;
+        private User user;
+        private String removedIsbn;
+
+        @Setup(Level.Trial)
+        public void setUp(ChaliceState chalice) {
+            cartService = chalice.bean(CartService.class);
+            cartRepository = chalice.bean(CartRepository.class);
+            bookRepository = chalice.bean(BookRepository.class);
+            userRepository = chalice.bean(UserRepository.class);
+
+            books = Fixtures.books(BOOKS);
+            bookRepository.saveAll(books);
+            user = new User();
+            user.setId("bench-user");
+            user.setName("Bench User");
+            user.setEmail("bench-user@example.com");
+            user.setPassword("bench");
+            removedIsbn = books.get(items / 2).getId();
+        }
+
+        // saving the user replaces its hash, dropping the books the last checkout added
+        @Setup(Level.Invocation)
+        public void refill() {
+            userRepository.save(user);
+            cartRepository.save(Fixtures.cart(CART_ID, user.getId(), books, items));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            cartRepository.deleteById(CART_ID);
+            userRepository.delete(user);
+            books.forEach(book -> bookRepository.deleteById(book.getId()));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Long> checkout(FreshCart cart) {
+        return cart.cartService.checkout(CART_ID);
+    }
+
+    @Benchmark
+    public Optional<CartUpdate> removeFromCart(FreshCart cart) {
+        return cart.cartService.removeFromCart(CART_ID, cart.removedIsbn);
+    }
+}
@@ -0,0 +1,63 @@
+package com.mhg.app.chalice.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JMH entry point. Starts one throwaway redis-stack container (RedisJSON and RediSearch included)
+ * for the whole run, unless {@code -Dbench.redis.url=redis://host:port} points at a server to use
+ * instead, and hands its address to every fork. Takes the usual JMH options; results are written
+ * as JSON ({@code target/jmh-result.json} unless {@code -rff} says otherwise) so two commits can be
+ * compared with {@link JmhResultDiff}.
+ * <p>
+ * Usage: {@code ./mvnw -Pbenchmarks test-compile exec:exec@jmh [-Djmh.args="<regex> <jmh options>"]
+ * [-Djmh.resultFile=<file>]}.
+ */
+public class ChaliceBenchmarks {
+
+    public static final String REDIS_URL_PROPERTY = "bench.redis.url";
+
+    private static final DockerImageName REDIS_STACK = DockerImageName.parse("redis/redis-stack-server:7.4.0-v3");
+    private static final int REDIS_PORT = 6379;
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        String redisUrl = System.getProperty(REDIS_URL_PROPERTY);
+        GenericContainer<?> redis = null;
+        if (redisUrl == null) {
+            redis = new GenericContainer<>(REDIS_STACK).withExposedPorts(REDIS_PORT);
+            redis.start();
+            redisUrl = "redis://" + redis.getHost() + ":" + redis.getMappedPort(REDIS_PORT);
+        }
+
+        try {
+            List<String> jvmArgs = new ArrayList<>(commandLine.getJvmArgsAppend().orElse(List.of()));
+            jvmArgs.add("-D" + REDIS_URL_PROPERTY + "=" + redisUrl);
+            jvmArgs.add("-Dspring.devtools.restart.enabled=false");
+
+            ChainedOptionsBuilder options = new OptionsBuilder() //
+                    .parent(commandLine) //
+                    .jvmArgsAppend(jvmArgs.toArray(String[]::new));
+            if (!commandLine.getResultFormat().hasValue()) {
+                options.resultFormat(ResultFormatType.JSON);
+            }
+            if (!commandLine.getResult().hasValue()) {
+                options.result("target/jmh-result.json");
+            }
+            new Runner(options.build()).run();
+        } finally {
+            if (redis != null) {
+                redis.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.mhg.app.chalice.bench;
+
+import com.mhg.app.chalice.ChaliceApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+
+/**
+ * The application context, without the web tier and without seeding, connected to the Redis
+ * stand-in started by {@link ChaliceBenchmarks}. Benchmarks take their repositories and services
+ * from here so they run with the same wiring, pools and serializers as the app.
+ */
+@State(Scope.Benchmark)
+public class ChaliceState {
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        URI redis = URI.create(System.getProperty(ChaliceBenchmarks.REDIS_URL_PROPERTY, "redis://localhost:6379"));
+        context = new SpringApplicationBuilder(ChaliceApplication.class) //
+                .web(WebApplicationType.NONE) //
+                .logStartupInfo(false) //
+                .run("--spring.data.redis.host=" + redis.getHost(), //
+                        "--spring.data.redis.port=" + redis.getPort(), //
+                        "--app.startup.seeding=skip", //
+                        "--logging.level.root=WARN");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
@@ -0,0 +1,48 @@
+package com.mhg.app.chalice.bench;
+
+import com.mhg.app.chalice.model.Book;
+import com.mhg.app.chalice.model.Cart;
+import com.mhg.app.chalice.model.CartItem;
+import com.mhg.app.chalice.model.Category;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+// Benchmark data; ids start with "bench" so they never collide with seeded books, carts or users
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static List<Book> books(int count) {
+        return IntStream.range(0, count).mapToObj(Fixtures::book).toList();
+    }
+
+    static Book book(int n) {
+        Book book = new Book();
+        book.setId(String.format("bench%08d", n));
+        book.setTitle("Effective Redis, Volume " + n);
+        book.setSubtitle("Data structures, modules and patterns for the JVM");
+        book.setDescription("A practical guide to building fast services on Redis. ".repeat(12));
+        book.setLanguage("en");
+        book.setPageCount(420L + n);
+        book.setThumbnail("http://books.google.com/books/content?id=bench" + n + "&printsec=frontcover&img=1&zoom=1&source=gbs_api");
+        book.setPrice(10.0 + n % 40);
+        book.setCurrency("USD");
+        book.setInfoLink("http://books.google.com/books?id=bench" + n + "&dq=redis&hl=&source=gbs_api");
+        book.setAuthors(Set.of("Jane Developer", "John Maintainer"));
+        book.addCategory(Category.builder().id("category-java").name("Java").build());
+        return book;
+    }
+
+    // one item per book, cycling through the given books
+    static Cart cart(String id, String userId, List<Book> books, int items) {
+        Cart.CartBuilder cart = Cart.builder().id(id).userId(userId);
+        for (int i = 0; i < items; i++) {
+            Book book = books.get(i % books.size());
+            cart.cartItem(CartItem.builder().isbn(book.getId()).price(book.getPrice()).quantity(1L + i % 3).build());
+        }
+        return cart.build().refreshTotals();
+    }
+}
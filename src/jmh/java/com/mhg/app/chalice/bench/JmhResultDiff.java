@@ -0,0 +1,60 @@
+package com.mhg.app.chalice.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files, e.g. from two commits, benchmark by benchmark and param by
+ * param. A change is flagged with {@code *} when it is larger than the two error margins combined.
+ * <p>
+ * Usage: {@code java -cp target/test-classes:<dependency classpath>
+ * com.mhg.app.chalice.bench.JmhResultDiff <baseline.json> <current.json>}.
+ */
+public class JmhResultDiff {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: JmhResultDiff <baseline.json> <current.json>");
+            System.exit(1);
+        }
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+
+        System.out.printf("%-70s %14s %14s %8s %s%n", "benchmark", "baseline", "current", "change", "unit");
+        current.forEach((name, metric) -> {
+            JsonNode before = baseline.get(name);
+            double score = metric.path("score").asDouble();
+            String unit = metric.path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %8s %s%n", name, "-", score, "new", unit);
+                return;
+            }
+            double beforeScore = before.path("score").asDouble();
+            double change = (score - beforeScore) / beforeScore * 100;
+            double margin = metric.path("scoreError").asDouble(0) + before.path("scoreError").asDouble(0);
+            String significant = Math.abs(score - beforeScore) > margin ? "*" : " ";
+            System.out.printf("%-70s %14.3f %14.3f %+7.1f%%%s %s%n", name, beforeScore, score, change, significant, unit);
+        });
+        baseline.keySet().stream().filter(name -> !current.containsKey(name)) //
+                .forEach(name -> System.out.printf("%-70s %14.3f %14s %8s%n", name, baseline.get(name).path("score").asDouble(), "-", "removed"));
+    }
+
+    // "<benchmark>:<mode>{param=value,...}" -> primaryMetric
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> metrics = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            String benchmark = run.path("benchmark").asText().replace("com.mhg.app.chalice.bench.", "");
+            Map<String, String> params = new TreeMap<>();
+            run.path("params").properties().forEach(param -> params.put(param.getKey(), param.getValue().asText()));
+            String name = benchmark + ":" + run.path("mode").asText() + (params.isEmpty() ? "" : params.toString());
+            metrics.put(name, run.path("primaryMetric"));
+        }
+        return metrics;
+    }
+}
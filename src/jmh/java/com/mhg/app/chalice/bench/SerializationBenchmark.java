@@ -0,0 +1,95 @@
+package com.mhg.app.chalice.bench;
+
+import com.mhg.app.chalice.model.Cart;
+import com.mhg.app.chalice.model.CartItem;
+import com.mhg.app.chalice.serialization.CompactRedisSerializer;
+import com.mhg.app.chalice.serialization.ValueFormat;
+import com.mhg.app.chalice.service.SearchResultCache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytes stored and serialize/deserialize time per value type for every {@link ValueFormat}, with
+ * and without LZ4, through {@link CompactRedisSerializer} exactly as the search cache's Redis tier
+ * uses it. JDK rows show n/a for models that are not {@code Serializable}.
+ * <p>
+ * Usage: {@code java -cp target/classes:target/test-classes:<dependency classpath>
+ * com.mhg.app.chalice.bench.SerializationBenchmark [seconds per case]} after
+ * {@code ./mvnw -Pbenchmarks test-compile}.
+ */
+public class SerializationBenchmark {
+
+    public static void main(String[] args) {
+        long nanosPerCase = TimeUnit.SECONDS.toNanos(args.length > 0 ? Long.parseLong(args[0]) : 2);
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("SearchEntry(10)", searchEntry(10));
+        values.put("SearchEntry(100)", searchEntry(100));
+        values.put("Cart(5)", cart(5));
+        values.put("Cart(50)", cart(50));
+
+        Map<String, CompactRedisSerializer> serializers = new LinkedHashMap<>();
+        for (ValueFormat format : ValueFormat.values()) {
+            serializers.put(format.name().toLowerCase(), new CompactRedisSerializer(format, -1));
+            serializers.put(format.name().toLowerCase() + "+lz4", new CompactRedisSerializer(format, 0));
+        }
+
+        System.out.printf("%-20s %-12s %8s %12s %12s%n", "value", "format", "bytes", "ser ns/op", "de ns/op");
+        values.forEach((name, value) -> serializers.forEach((format, serializer) -> {
+            byte[] bytes;
+            try {
+                bytes = serializer.serialize(value);
+                serializer.deserialize(bytes);
+            } catch (RuntimeException e) {
+                System.out.printf("%-20s %-12s %8s %12s %12s%n", name, format, "n/a", "n/a", "n/a");
+                return;
+            }
+            double serialize = time(nanosPerCase, () -> serializer.serialize(value));
+            double deserialize = time(nanosPerCase, () -> serializer.deserialize(bytes));
+            System.out.printf("%-20s %-12s %8d %12.0f %12.0f%n", name, format, bytes.length, serialize, deserialize);
+        }));
+    }
+
+    // half of the budget warms up, the other half is measured; returns ns per operation
+    private static double time(long nanos, Runnable operation) {
+        long warmup = System.nanoTime() + nanos / 2;
+        while (System.nanoTime() < warmup) {
+            operation.run();
+        }
+        long operations = 0;
+        long start = System.nanoTime();
+        long deadline = start + nanos / 2;
+        long now;
+        do {
+            for (int i = 0; i < 100; i++) {
+                operation.run();
+            }
+            operations += 100;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return (now - start) / (double) operations;
+    }
+
+    // search cache entries hold ISBNs and scores only
+    private static SearchResultCache.Entry searchEntry(int hits) {
+        List<String> isbns = new ArrayList<>(hits);
+        List<Double> scores = new ArrayList<>(hits);
+        for (int i = 0; i < hits; i++) {
+            isbns.add("97801338444" + String.format("%02d", i % 100));
+            scores.add(1.0 / (i + 1));
+        }
+        return new SearchResultCache.Entry(hits * 10L, isbns, scores);
+    }
+
+    private static Cart cart(int items) {
+        Cart.CartBuilder cart = Cart.builder().id("cart-" + items).userId("user-42");
+        for (int i = 0; i < items; i++) {
+            cart.cartItem(CartItem.builder().isbn("97801338444" + String.format("%02d", i % 100)).price(10.0 + i).quantity(1L).build());
+        }
+        return cart.build().refreshTotals();
+    }
+}
@@ -0,0 +1,124 @@
+package com.mhg.app.chalice.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop HTTP load generator for comparing the web tier on platform vs virtual threads.
+ * Every simulated client is a virtual thread issuing requests back to back against one path,
+ * so the generator itself never becomes the bottleneck at 1k+ clients.
+ * <p>
+ * Usage: {@code java -cp target/test-classes com.mhg.app.chalice.bench.WebLoadBenchmark
+ * <baseUrl> <clients> <seconds> <path>...} after {@code ./mvnw -Pbenchmarks test-compile}, run once against the app started with
+ * {@code spring.threads.virtual.enabled=false} and once with {@code =true}.
+ */
+public class WebLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("usage: WebLoadBenchmark <baseUrl> <clients> <seconds> <path>...");
+            System.exit(1);
+        }
+        String baseUrl = args[0];
+        int clients = Integer.parseInt(args[1]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+        List<String> paths = Arrays.asList(args).subList(3, args.length);
+
+        HttpClient client = HttpClient.newBuilder() //
+                .version(HttpClient.Version.HTTP_1_1) //
+                .connectTimeout(Duration.ofSeconds(5)) //
+                .build();
+
+        System.out.printf("%-45s %8s %10s %8s %8s %8s %8s%n", "path", "clients", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (String path : paths) {
+            Result result = run(client, URI.create(baseUrl + path), clients, duration);
+            System.out.printf("%-45s %8d %10.1f %8.2f %8.2f %8.2f %8d%n", path, clients, //
+                    result.throughput(), result.percentile(50), result.percentile(99), result.percentile(100), result.errors());
+        }
+    }
+
+    private static Result run(HttpClient client, URI uri, int clients, Duration duration) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Sample>> futures = new ArrayList<>(clients);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    Sample sample = new Sample();
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                sample.errors++;
+                                continue;
+                            }
+                            sample.add(System.nanoTime() - start);
+                        } catch (Exception e) {
+                            sample.errors++;
+                        }
+                    }
+                    return sample;
+                }));
+            }
+        }
+
+        Sample total = new Sample();
+        for (Future<Sample> future : futures) {
+            Sample sample = future.get();
+            total.addAll(sample);
+            total.errors += sample.errors;
+        }
+        return new Result(total.sorted(), total.errors, duration);
+    }
+
+    private static final class Sample {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long nanos) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+
+        void addAll(Sample other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.latencies[i]);
+            }
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    private record Result(long[] latencies, long errors, Duration duration) {
+
+        double throughput() {
+            return latencies.length / (double) duration.toSeconds();
+        }
+
+        double percentile(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
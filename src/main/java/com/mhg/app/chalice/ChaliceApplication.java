@@ -1,15 +1,20 @@
 package com.mhg.app.chalice;
 
+import com.mhg.app.chalice.metrics.RedisCommandMetrics;
+import com.mhg.app.chalice.metrics.TimedConnectionFactory;
+import com.mhg.app.chalice.repository.BookNearCache;
+import com.mhg.app.chalice.repository.CatalogVersion;
+import com.mhg.app.chalice.serialization.CompactRedisSerializer;
+import com.mhg.app.chalice.serialization.ValueFormat;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
-import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import redis.clients.jedis.ConnectionPoolConfig;
 import redis.clients.jedis.DefaultJedisClientConfig;
 import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.JedisClientConfig;
@@ -17,7 +22,6 @@ import redis.clients.jedis.JedisPooled;
 
 import java.time.Duration;
 
-@EnableCaching
 @SpringBootApplication
 public class ChaliceApplication {
 
@@ -25,11 +29,21 @@ public class ChaliceApplication {
         SpringApplication.run(ChaliceApplication.class, args);
     }
 
+    // search-cache Redis tier values: app.redisValues.format (jdk|json|smile), LZ4 from app.redisValues.compressThreshold bytes
     @Bean
-    public RedisTemplate<?, ?> redisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<?, ?> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
-        return template;
+    public CompactRedisSerializer redisValueSerializer(@Value("${app.redisValues.format:smile}") ValueFormat format, //
+                                                       @Value("${app.redisValues.compressThreshold:1024}") int compressThreshold) {
+        return new CompactRedisSerializer(format, compressThreshold);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory, BookNearCache bookNearCache, //
+                                                                       CatalogVersion catalogVersion) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(bookNearCache, new ChannelTopic(BookNearCache.INVALIDATION_CHANNEL));
+        container.addMessageListener(catalogVersion, new ChannelTopic(CatalogVersion.CHANNEL));
+        return container;
     }
 
     @Bean
@@ -37,30 +51,49 @@ public class ChaliceApplication {
         return new BCryptPasswordEncoder();
     }
     // You should get these values from your application.properties or application.yml
-    @Value("${spring.redis.host:localhost}")
+    @Value("${spring.data.redis.host:localhost}")
     private String redisHost;
 
-    @Value("${spring.redis.port:6379}")
+    @Value("${spring.data.redis.port:6379}")
     private int redisPort;
 
-    @Value("${spring.redis.password:}") // Optional: if your Redis requires authentication
+    @Value("${spring.data.redis.password:}") // Optional: if your Redis requires authentication
     private String redisPassword;
 
-    @Value("${spring.redis.database:0}") // Optional: Redis database index
+    @Value("${spring.data.redis.database:0}") // Optional: Redis database index
     private int redisDatabase;
 
-    @Value("${spring.redis.timeout:2000}") // Connection timeout in milliseconds
+    @Value("${spring.data.redis.timeout:2000}") // Connection timeout in milliseconds
     private int redisTimeout;
 
+    // Sized for thousands of concurrent (virtual-thread) callers: commons-pool2 parks waiters on a
+    // ReentrantLock, so a waiting virtual thread unmounts instead of pinning its carrier, and
+    // maxWait makes an exhausted pool fail fast instead of queueing requests forever.
+    @Value("${app.jedis.clientName:chalice-jedis}")
+    private String jedisClientName;
+
+    @Value("${app.jedis.pool.maxTotal:64}")
+    private int jedisPoolMaxTotal;
+
+    @Value("${app.jedis.pool.maxIdle:64}")
+    private int jedisPoolMaxIdle;
+
+    @Value("${app.jedis.pool.minIdle:8}")
+    private int jedisPoolMinIdle;
+
+    @Value("${app.jedis.pool.maxWait:PT2S}")
+    private Duration jedisPoolMaxWait;
+
     @Bean
-    public JedisPooled jedisPooled() {
+    public JedisPooled jedisPooled(RedisCommandMetrics redisCommandMetrics) {
         // Build the HostAndPort for your Redis instance
         HostAndPort hostAndPort = new HostAndPort(redisHost, redisPort);
 
         // Build the JedisClientConfig (recommended for more control)
         DefaultJedisClientConfig.Builder clientConfigBuilder = DefaultJedisClientConfig.builder()
                 .connectionTimeoutMillis(redisTimeout)
-                .database(redisDatabase);
+                .database(redisDatabase)
+                .clientName(jedisClientName);
 
         if (redisPassword != null && !redisPassword.isEmpty()) {
             clientConfigBuilder.password(redisPassword);
@@ -68,20 +101,15 @@ public class ChaliceApplication {
 
         JedisClientConfig clientConfig = clientConfigBuilder.build();
 
-        // Create and return the JedisPooled instance
-        return new JedisPooled(hostAndPort, clientConfig);
-    }
+        ConnectionPoolConfig poolConfig = new ConnectionPoolConfig();
+        poolConfig.setMaxTotal(jedisPoolMaxTotal);
+        poolConfig.setMaxIdle(jedisPoolMaxIdle);
+        poolConfig.setMinIdle(jedisPoolMinIdle);
+        poolConfig.setBlockWhenExhausted(true);
+        poolConfig.setMaxWait(jedisPoolMaxWait);
 
-    @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig() //
-                .prefixCacheNameWith(this.getClass().getPackageName() + ".") //
-                .entryTtl(Duration.ofMinutes(3)) //
-                .disableCachingNullValues();
-
-        return RedisCacheManager.builder(connectionFactory) //
-                .cacheDefaults(config) //
-                .build();
+        // Create and return the JedisPooled instance; its connections time every command into redis.commands
+        return new JedisPooled(poolConfig, new TimedConnectionFactory(hostAndPort, clientConfig, redisCommandMetrics));
     }
 }
 
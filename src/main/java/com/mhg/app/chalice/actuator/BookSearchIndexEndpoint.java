@@ -0,0 +1,25 @@
+package com.mhg.app.chalice.actuator;
+
+import com.mhg.app.chalice.service.BookSearchIndexManager;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// GET /actuator/booksindex: live/building index, percent_indexed, doc count and reindex timing
+@Component
+@Endpoint(id = "booksindex")
+public class BookSearchIndexEndpoint {
+
+    private final BookSearchIndexManager bookSearchIndexManager;
+
+    public BookSearchIndexEndpoint(BookSearchIndexManager bookSearchIndexManager) {
+        this.bookSearchIndexManager = bookSearchIndexManager;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return bookSearchIndexManager.status();
+    }
+}
@@ -0,0 +1,39 @@
+package com.mhg.app.chalice.actuator;
+
+import com.mhg.app.chalice.service.CartGenerator;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// GET /actuator/cartgenerator: last run; POST {"count": n, "checkoutRatio": r} starts one in the background.
+// Not in the default exposure list, perf environments opt in.
+@Component
+@Endpoint(id = "cartgenerator")
+public class CartGeneratorEndpoint {
+
+    private final CartGenerator cartGenerator;
+
+    public CartGeneratorEndpoint(CartGenerator cartGenerator) {
+        this.cartGenerator = cartGenerator;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return cartGenerator.status();
+    }
+
+    @WriteOperation
+    public Map<String, Object> generate(@Nullable Long count, @Nullable Double checkoutRatio) {
+        try {
+            cartGenerator.submit(count != null ? count : 1000, checkoutRatio != null ? checkoutRatio : 0.5);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return cartGenerator.status();
+    }
+}
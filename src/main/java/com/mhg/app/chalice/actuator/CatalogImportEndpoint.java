@@ -0,0 +1,39 @@
+package com.mhg.app.chalice.actuator;
+
+import com.mhg.app.chalice.service.BookCatalogLoader;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// GET /actuator/catalogimport: last import; POST {"category": "java", "books": [...]} starts one in the
+// background, books in the /data/books file format. Not in the default exposure list, admin environments opt in.
+@Component
+@Endpoint(id = "catalogimport")
+public class CatalogImportEndpoint {
+
+    private final BookCatalogLoader bookCatalogLoader;
+
+    public CatalogImportEndpoint(BookCatalogLoader bookCatalogLoader) {
+        this.bookCatalogLoader = bookCatalogLoader;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return bookCatalogLoader.status();
+    }
+
+    @WriteOperation
+    public Map<String, Object> importCatalog(String category, List<Map<String, Object>> books) {
+        try {
+            bookCatalogLoader.submit(category, books);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return bookCatalogLoader.status();
+    }
+}
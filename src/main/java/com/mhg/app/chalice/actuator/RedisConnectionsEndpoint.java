@@ -0,0 +1,86 @@
+package com.mhg.app.chalice.actuator;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.util.Pool;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// GET /actuator/redisconnections: Jedis pool usage, the Spring Data connection setup and the server's view (CLIENT LIST by name)
+@Component
+@Endpoint(id = "redisconnections")
+public class RedisConnectionsEndpoint {
+
+    private final JedisPooled jedisPooled;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    public RedisConnectionsEndpoint(JedisPooled jedisPooled, RedisConnectionFactory connectionFactory) {
+        this.jedisPooled = jedisPooled;
+        this.connectionFactory = connectionFactory;
+    }
+
+    @ReadOperation
+    public Map<String, Object> connections() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jedis", poolStats(jedisPooled.getPool()));
+        response.put("springData", springDataStats());
+        response.put("server", clientsByName());
+        return response;
+    }
+
+    private static Map<String, Object> poolStats(Pool<Connection> pool) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxTotal", pool.getMaxTotal());
+        stats.put("active", pool.getNumActive());
+        stats.put("idle", pool.getNumIdle());
+        stats.put("waiters", pool.getNumWaiters());
+        stats.put("created", pool.getCreatedCount());
+        stats.put("destroyed", pool.getDestroyedCount());
+        stats.put("borrowed", pool.getBorrowedCount());
+        stats.put("meanBorrowWaitMs", pool.getMeanBorrowWaitDuration().toMillis());
+        stats.put("maxBorrowWaitMs", pool.getMaxBorrowWaitDuration().toMillis());
+        return stats;
+    }
+
+    private Map<String, Object> springDataStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("factory", connectionFactory.getClass().getSimpleName());
+        if (connectionFactory instanceof LettuceConnectionFactory lettuce) {
+            stats.put("clientName", lettuce.getClientName());
+            stats.put("sharedNativeConnection", lettuce.getShareNativeConnection());
+            stats.put("pooled", lettuce.getClientConfiguration() instanceof LettucePoolingClientConfiguration);
+        }
+        return stats;
+    }
+
+    // connections the server currently holds, grouped by CLIENT SETNAME (empty name -> "unnamed")
+    private Map<String, Integer> clientsByName() {
+        Object reply = jedisPooled.sendCommand(Protocol.Command.CLIENT, "LIST");
+        String clients = reply instanceof byte[] bytes ? SafeEncoder.encode(bytes) : String.valueOf(reply);
+        Map<String, Integer> byName = new TreeMap<>();
+        for (String line : clients.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String name = "unnamed";
+            for (String field : line.trim().split(" ")) {
+                if (field.startsWith("name=") && field.length() > "name=".length()) {
+                    name = field.substring("name=".length());
+                }
+            }
+            byName.merge(name, 1, Integer::sum);
+        }
+        return byName;
+    }
+}
@@ -0,0 +1,49 @@
+package com.mhg.app.chalice.actuator;
+
+import com.mhg.app.chalice.model.User;
+import com.mhg.app.chalice.model.UserImportReport;
+import com.mhg.app.chalice.service.UserImportService;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// POST /actuator/userimport {"users": [{name, email, password}, ...], "role": "customer"}: bulk onboarding,
+// plain-text passwords, existing emails are skipped. Not in the default exposure list, admin environments opt in.
+@Component
+@Endpoint(id = "userimport")
+public class UserImportEndpoint {
+
+    private final UserImportService userImportService;
+
+    public UserImportEndpoint(UserImportService userImportService) {
+        this.userImportService = userImportService;
+    }
+
+    @WriteOperation
+    public UserImportReport importUsers(List<Map<String, Object>> users, @Nullable String role) {
+        List<User> imported = users.stream().map(UserImportEndpoint::toUser).toList();
+        try {
+            return userImportService.importUsers(imported, role != null ? role : "customer");
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+
+    // only the fields an import may set; ids and roles are assigned by the service
+    private static User toUser(Map<String, Object> fields) {
+        if (fields == null) {
+            return null;
+        }
+        User user = new User();
+        user.setName(Objects.toString(fields.get("name"), null));
+        user.setEmail(Objects.toString(fields.get("email"), null));
+        user.setPassword(Objects.toString(fields.get("password"), null));
+        return user;
+    }
+}
@@ -1,24 +1,24 @@
 package com.mhg.app.chalice.boot;
 
-import com.mhg.app.chalice.model.Book;
 import com.mhg.app.chalice.model.BookRating;
 import com.mhg.app.chalice.model.User;
 import com.mhg.app.chalice.repository.BookRatingRepository;
+import com.mhg.app.chalice.repository.BookRatingStatsRepository;
+import com.mhg.app.chalice.repository.BookRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.core.annotation.Order;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
+import redis.clients.jedis.JedisPooled;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
-import java.util.stream.IntStream;
+import java.util.Set;
 
 @Component
-@Order(4)
 @Slf4j
-public class CreateBookRatings implements CommandLineRunner {
+public class CreateBookRatings implements StartupTask {
 
     @Value("${app.numberOfRatings:5000}")
     private Integer numberOfRatings;
@@ -26,35 +26,54 @@ public class CreateBookRatings implements CommandLineRunner {
     @Value("${app.ratingStars:5}")
     private Integer ratingStars;
 
+    @Value("${app.ratingBatchSize:500}")
+    private Integer batchSize;
+
     @Autowired
-    private RedisTemplate<String, String> redisTemplate;
+    private JedisPooled jedisPooled;
 
     @Autowired
     private BookRatingRepository bookRatingRepo;
 
+    @Autowired
+    private BookRatingStatsRepository bookRatingStatsRepository;
+
+    @Override
+    public Set<Class<? extends StartupTask>> dependsOn() {
+        return Set.of(CreateUsers.class, CreateBooks.class);
+    }
+
     @Override
-    public void run(String... args) throws Exception {
+    public void run() throws Exception {
         if (bookRatingRepo.count() == 0) {
             log.info(">>>> CreateBookRatings | Inserting Book Ratings");
             Random random = new Random();
-            IntStream.range(0, numberOfRatings).forEach(n -> {
-                String bookId = redisTemplate.opsForSet().randomMember(Book.class.getName());
-                String userId = redisTemplate.opsForSet().randomMember(User.class.getName());
-                int stars = random.nextInt(ratingStars) + 1;
-
-                User user = new User();
-                user.setId(userId);
-
-                Book book = new Book();
-                book.setId(bookId);
-
-                BookRating rating = BookRating.builder() //
-                        .user(user) //
-                        .book(book) //
-                        .rating(stars).build();
-                bookRatingRepo.save(rating);
-            });
+            for (int from = 0; from < numberOfRatings; from += batchSize) {
+                int count = Math.min(batchSize, numberOfRatings - from);
+                // SRANDMEMBER with a negative count: one round trip per batch, repeats allowed
+                List<String> bookIds = jedisPooled.srandmember(BookRepository.ID_SET, -count);
+                List<String> userIds = jedisPooled.srandmember("User", -count);
+                if (bookIds == null || userIds == null || bookIds.isEmpty() || userIds.isEmpty()) {
+                    log.info(">>>> CreateBookRatings | No books or users to rate");
+                    return;
+                }
+
+                List<BookRating> ratings = new ArrayList<>(count);
+                for (int n = 0; n < count; n++) {
+                    User user = new User();
+                    user.setId(userIds.get(n));
+
+                    ratings.add(BookRating.builder() //
+                            .user(user) //
+                            .bookId(bookIds.get(n)) //
+                            .rating(random.nextInt(ratingStars) + 1).build());
+                }
+                bookRatingStatsRepository.rateAll(ratings);
+            }
             log.info(">>>> CreateBookRatings | BookRating created...");
+        } else if (!bookRatingStatsRepository.exists()) {
+            // ratings written before the per-book aggregates existed
+            bookRatingStatsRepository.rebuild();
         }
     }
-}
\ No newline at end of file
+}
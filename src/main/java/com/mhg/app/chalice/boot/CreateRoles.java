@@ -4,20 +4,17 @@ import com.mhg.app.chalice.model.Role;
 import com.mhg.app.chalice.repository.RoleRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 @Component
-@Order(1)
 @Slf4j
-public class CreateRoles implements CommandLineRunner {
+public class CreateRoles implements StartupTask {
 
     @Autowired
     private RoleRepository roleRepository;
 
     @Override
-    public void run(String... args) throws Exception {
+    public void run() throws Exception {
         if (roleRepository.count() == 0) {
             Role adminRole = Role.builder().name("admin").build();
             Role customerRole = Role.builder().name("customer").build();
@@ -6,23 +6,20 @@ import com.mhg.app.chalice.model.Role;
 import com.mhg.app.chalice.model.User;
 import com.mhg.app.chalice.repository.RoleRepository;
 import com.mhg.app.chalice.repository.UserRepository;
+import com.mhg.app.chalice.service.UserImportService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.core.annotation.Order;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
 
 
 @Slf4j
-@Order(2)
 @Component
-public class CreateUsers implements CommandLineRunner {
+public class CreateUsers implements StartupTask {
 
     @Autowired
     private RoleRepository roleRepository;
@@ -31,10 +28,15 @@ public class CreateUsers implements CommandLineRunner {
     private UserRepository userRepository;
 
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private UserImportService userImportService;
 
     @Override
-    public void run(String... args) throws Exception {
+    public Set<Class<? extends StartupTask>> dependsOn() {
+        return Set.of(CreateRoles.class);
+    }
+
+    @Override
+    public void run() throws Exception {
         Role customerRole = roleRepository.findFirstByName("customer");
         Role adminRole = roleRepository.findFirstByName("admin");
 
@@ -66,13 +68,8 @@ public class CreateUsers implements CommandLineRunner {
                 // convert the JSON to objects
                 List<User> users = mapper.readValue(inputStream, typeReference);
 
-                users.stream()
-                        .filter(Objects::nonNull)
-                        .forEach((user) -> {
-                            user.setPassword(passwordEncoder.encode(user.getPassword()));
-                            user.addRole(customer);
-                    userRepository.save(user);
-                });
+                // hashed across all cores, written in pipelined batches
+                userImportService.importUsers(users, customer);
                 log.info(">>>> CreateUsers | {} Users Saved!", users.size());
             } catch (IOException e) {
                 log.info(">>>> CreateUsers | Unable to import users: {}",  e.getMessage());
@@ -81,10 +78,9 @@ public class CreateUsers implements CommandLineRunner {
             User adminUser = new User();
             adminUser.setName("Adminus Admistradore");
             adminUser.setEmail("admin@example.com");
-            adminUser.setPassword(passwordEncoder.encode("Reindeer Flotilla"));//
-            adminUser.addRole(admin);
+            adminUser.setPassword("Reindeer Flotilla");
 
-            userRepository.save(adminUser);
+            userImportService.importUsers(List.of(adminUser), admin);
             log.info(">>>> Loaded User Data and Created users...");
         }
     }
@@ -0,0 +1,27 @@
+package com.mhg.app.chalice.boot;
+
+import com.mhg.app.chalice.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// books saved by the old @RedisHash mapping are converted to JSON in place and the title index is
+// filled for catalogs stored before it existed, also when seeding is skipped
+@Component
+@Slf4j
+public class MigrateBookHashes implements StartupTask {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Override
+    public boolean essential() {
+        return true;
+    }
+
+    @Override
+    public void run() throws Exception {
+        bookRepository.migrateFromHashes();
+        bookRepository.ensureTitleIndex();
+    }
+}
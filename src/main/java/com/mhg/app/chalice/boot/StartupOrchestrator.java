@@ -0,0 +1,130 @@
+package com.mhg.app.chalice.boot;
+
+import com.mhg.app.chalice.service.WorkerExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs the {@link StartupTask}s as a dependency graph instead of one after another: every task is
+ * started as soon as its {@code dependsOn()} tasks are done, independent ones in parallel. A
+ * per-task timing report is logged at the end.
+ * <p>
+ * {@code app.startup.seeding}: {@code sync} (default) finishes all tasks before the app reports
+ * ready, {@code async} serves immediately while the graph runs in the background, {@code skip}
+ * only runs the essential tasks.
+ */
+@Slf4j
+@Component
+public class StartupOrchestrator implements ApplicationRunner {
+
+    public enum Seeding { SYNC, ASYNC, SKIP }
+
+    private final Map<Class<?>, StartupTask> tasks = new LinkedHashMap<>();
+
+    private final WorkerExecutors workerExecutors;
+
+    @Value("${app.startup.seeding:sync}")
+    private Seeding seeding;
+
+    public StartupOrchestrator(List<StartupTask> startupTasks, WorkerExecutors workerExecutors) {
+        startupTasks.forEach(task -> tasks.put(ClassUtils.getUserClass(task), task));
+        this.workerExecutors = workerExecutors;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<StartupTask> selected = tasks.values().stream() //
+                .filter(task -> seeding != Seeding.SKIP || task.essential()) //
+                .toList();
+        log.info(">>>> StartupOrchestrator | Seeding mode {}, running {} of {} startup tasks", seeding, selected.size(), tasks.size());
+
+        ExecutorService executor = workerExecutors.newExecutor("startup", Math.max(1, selected.size()));
+        CompletableFuture<Void> all = start(selected, executor).whenComplete((result, throwable) -> executor.shutdown());
+        if (seeding == Seeding.ASYNC) {
+            all.exceptionally(throwable -> {
+                log.error(">>>> StartupOrchestrator | Background startup tasks failed: {}", throwable.getMessage(), throwable);
+                return null;
+            });
+            return;
+        }
+        try {
+            all.join();
+        } catch (CompletionException e) {
+            throw new RuntimeException(">>>> StartupOrchestrator | Startup task failed", e.getCause());
+        }
+    }
+
+    private CompletableFuture<Void> start(List<StartupTask> selected, ExecutorService executor) {
+        long startTime = System.currentTimeMillis(); // Millisecond precision
+        Map<String, long[]> timings = new ConcurrentHashMap<>();
+        Map<Class<?>, CompletableFuture<Void>> futures = new HashMap<>();
+        Set<Class<?>> selectedTypes = new HashSet<>();
+        selected.forEach(task -> selectedTypes.add(ClassUtils.getUserClass(task)));
+        for (StartupTask task : selected) {
+            schedule(task, selectedTypes, futures, new HashSet<>(), executor, timings, startTime);
+        }
+        return CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)) //
+                .whenComplete((result, throwable) -> report(timings, System.currentTimeMillis() - startTime));
+    }
+
+    // depth-first so dependencies are scheduled first; a task depending on a skipped task does not wait for it
+    private CompletableFuture<Void> schedule(StartupTask task, Set<Class<?>> selectedTypes, Map<Class<?>, CompletableFuture<Void>> futures, //
+                                             Set<Class<?>> visiting, ExecutorService executor, Map<String, long[]> timings, long startTime) {
+        Class<?> type = ClassUtils.getUserClass(task);
+        CompletableFuture<Void> existing = futures.get(type);
+        if (existing != null) {
+            return existing;
+        }
+        if (!visiting.add(type)) {
+            throw new IllegalStateException("Startup task dependency cycle at " + type.getSimpleName());
+        }
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+        for (Class<? extends StartupTask> dependency : task.dependsOn()) {
+            StartupTask dependencyTask = tasks.get(dependency);
+            if (dependencyTask == null) {
+                throw new IllegalStateException(type.getSimpleName() + " depends on unknown startup task " + dependency.getSimpleName());
+            }
+            if (selectedTypes.contains(dependency)) {
+                dependencies.add(schedule(dependencyTask, selectedTypes, futures, visiting, executor, timings, startTime));
+            }
+        }
+        visiting.remove(type);
+
+        CompletableFuture<Void> future = CompletableFuture.allOf(dependencies.toArray(CompletableFuture[]::new)).thenRunAsync(() -> {
+            long started = System.currentTimeMillis();
+            try {
+                task.run();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                timings.put(type.getSimpleName(), new long[]{started - startTime, System.currentTimeMillis() - started});
+            }
+        }, executor);
+        futures.put(type, future);
+        return future;
+    }
+
+    private void report(Map<String, long[]> timings, long total) {
+        StringBuilder report = new StringBuilder();
+        timings.entrySet().stream() //
+                .sorted(Map.Entry.comparingByValue((a, b) -> Long.compare(a[0], b[0]))) //
+                .forEach(entry -> report.append(String.format("%n    %-30s start +%6d ms  took %6d ms", entry.getKey(), entry.getValue()[0], entry.getValue()[1])));
+        log.info(">>>> StartupOrchestrator | Startup tasks finished in {} ms:{}", total, report);
+    }
+}
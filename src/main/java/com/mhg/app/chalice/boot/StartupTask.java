@@ -0,0 +1,21 @@
+package com.mhg.app.chalice.boot;
+
+import java.util.Set;
+
+/**
+ * A unit of startup work run by {@link StartupOrchestrator}. Tasks run concurrently as soon as
+ * everything they depend on has finished; there is no global order beyond {@link #dependsOn()}.
+ */
+public interface StartupTask {
+
+    void run() throws Exception;
+
+    default Set<Class<? extends StartupTask>> dependsOn() {
+        return Set.of();
+    }
+
+    // essential tasks still run with app.startup.seeding=skip (schema/index upkeep, not data)
+    default boolean essential() {
+        return false;
+    }
+}
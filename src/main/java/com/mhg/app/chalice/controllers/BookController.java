@@ -1,21 +1,26 @@
 package com.mhg.app.chalice.controllers;
 
+import com.mhg.app.chalice.model.AuthorSuggestion;
 import com.mhg.app.chalice.model.Book;
+import com.mhg.app.chalice.model.BookRating;
+import com.mhg.app.chalice.model.BookRatingRequest;
+import com.mhg.app.chalice.model.BookRatingStats;
+import com.mhg.app.chalice.model.BookSearchPage;
+import com.mhg.app.chalice.model.BookSearchRequest;
+import com.mhg.app.chalice.model.BookSearchResults;
+import com.mhg.app.chalice.model.BookSlice;
 import com.mhg.app.chalice.model.Category;
+import com.mhg.app.chalice.model.User;
+import com.mhg.app.chalice.repository.BookNearCache;
+import com.mhg.app.chalice.repository.BookRatingStatsRepository;
 import com.mhg.app.chalice.repository.BookRepository;
 import com.mhg.app.chalice.repository.CategoryRepository;
-import com.redis.lettucemod.api.StatefulRedisModulesConnection;
-import com.redis.lettucemod.api.async.RedisModulesAsyncCommands;
-import com.redis.lettucemod.search.SearchResults;
-import com.redis.lettucemod.search.Suggestion;
-import com.redis.lettucemod.search.SuggetOptions;
-import io.lettuce.core.RedisCommandExecutionException;
-import io.lettuce.core.RedisFuture;
+import com.mhg.app.chalice.repository.UserRepository;
+import com.mhg.app.chalice.service.BookSearchService;
+import com.mhg.app.chalice.service.SearchResultCache;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -24,60 +29,114 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private BookNearCache bookNearCache;
+
     @Autowired
     private CategoryRepository categoryRepository;
 
-    @Value("${app.booksSearchIndexName:books-idx}")
-    private String searchIndexName;
+    @Autowired
+    private BookSearchService bookSearchService;
 
-    @Value("${app.autoCompleteKey:author-autocomplete}")
-    private String autoCompleteKey;
+    @Autowired
+    private SearchResultCache searchResultCache;
 
     @Autowired
-    GenericObjectPool<StatefulRedisModulesConnection<String, String>> pool;
+    private BookRatingStatsRepository bookRatingStatsRepository;
 
-    public static final Integer MAX_TIMEOUT = 3;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.ratingStars:5}")
+    private Integer ratingStars;
 
     @GetMapping("/categories")
     public Iterable<Category> getCategories() {
-        long startTime = System.currentTimeMillis(); // Millisecond precision
-        Iterable<Category> categories = categoryRepository.findAll();
-        log.info("Finished processing in {} ms.", System.currentTimeMillis() - startTime);
-        return categories;
+        return categoryRepository.findAll();
     }
 
     @GetMapping("/{isbn}")
     public Book get(@PathVariable("isbn") String isbn) {
-        long startTime = System.currentTimeMillis(); // Millisecond precision
-        Book book = bookRepository.findById(isbn);
-        log.info("Finished processing in {} ms.", System.currentTimeMillis() - startTime);
-        return book;
+        return bookNearCache.findById(isbn);
+    }
+
+    @GetMapping("/{isbn}/rating")
+    public BookRatingStats rating(@PathVariable("isbn") String isbn) {
+        BookRatingStats stats = bookRatingStatsRepository.findByIsbn(isbn);
+        if (stats == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No ratings for book " + isbn);
+        }
+        return stats;
+    }
+
+    // stores the user's rating (replacing an earlier one for this book) and moves the book's aggregate
+    // and top-rated score in the same script call
+    @PostMapping("/{isbn}/rating")
+    public BookRatingStats rate(@PathVariable("isbn") String isbn, @RequestBody BookRatingRequest request) {
+        if (request.getRating() == null || request.getRating() < 1 || request.getRating() > ratingStars) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "rating must be between 1 and " + ratingStars);
+        }
+        if (bookNearCache.findById(isbn) == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "book not found");
+        }
+        User user = request.getUserId() != null ? userRepository.findById(request.getUserId()).orElse(null) : null;
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "user not found");
+        }
+        bookRatingStatsRepository.rate(BookRating.builder() //
+                .user(user) //
+                .bookId(isbn) //
+                .rating(request.getRating()) //
+                .build());
+        return bookRatingStatsRepository.findByIsbn(isbn);
+    }
+
+    @GetMapping("/top-rated")
+    public List<BookRatingStats> topRated(@RequestParam(defaultValue = "10") Integer limit) {
+        return bookRatingStatsRepository.findTopRated(Math.max(1, Math.min(limit, 100)));
+    }
+
+    @GetMapping("/cache/stats")
+    public Map<String, Object> cacheStats() {
+        return bookNearCache.stats();
     }
 
     @GetMapping
-    public ResponseEntity<Map<String, Object>> all(@RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "10") Integer size) {
-        long startTime = System.currentTimeMillis(); // Millisecond precision
+    public ResponseEntity<Map<String, Object>> all(@RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "10") Integer size, //
+                                                   @RequestParam(required = false) String cursor) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (cursor != null) {
+            return slice(cursor, size);
+        }
+        if (page < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must not be negative");
+        }
         Pageable paging = PageRequest.of(page, size);
         Page<Book> pagedResult = bookRepository.findAll(paging);
         List<Book> books = pagedResult.hasContent() ? pagedResult.getContent() : Collections.emptyList();
@@ -87,103 +146,89 @@ public class BookController {
         response.put("page", pagedResult.getNumber());
         response.put("pages", pagedResult.getTotalPages());
         response.put("total", pagedResult.getTotalElements());
-        log.info("Finished processing in {} ms.", System.currentTimeMillis() - startTime);
         return new ResponseEntity<>(response, new HttpHeaders(), HttpStatus.OK);
     }
 
-    @Cacheable("book-search")
+    // ?cursor= (empty) starts a title-ordered listing, every response carries the token for the next slice;
+    // tokens hold no server state, so a slice can be requested again
+    private ResponseEntity<Map<String, Object>> slice(String cursor, Integer size) {
+        BookSlice slice;
+        try {
+            slice = bookRepository.findSlice(cursor, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("books", slice.getBooks());
+        response.put("next", slice.getNext());
+        return new ResponseEntity<>(response, new HttpHeaders(), HttpStatus.OK);
+    }
+
     @GetMapping("/search")
-    public SearchResults<String, String> search(@RequestParam(name = "q") String query) throws Exception {
-        long startTime = System.currentTimeMillis(); // Millisecond precision
-        try (StatefulRedisModulesConnection<String, String> connection = pool.borrowObject()) {
-            RedisModulesAsyncCommands<String, String> commands = connection.async();
-            log.info("Executing search for index {} with query '{}'", searchIndexName, query);
-
-            try {
-                RedisFuture<SearchResults<String, String>> futureResults = commands.ftSearch(searchIndexName, query);
-                SearchResults<String, String> results = futureResults.get(5, TimeUnit.SECONDS); // Specify a timeout
-                log.info(">>>> Search for query '{}' on index '{}' returned results {}", query, searchIndexName, results);
-                log.info("Finished processing in {} ms.", System.currentTimeMillis() - startTime);
-                return results;
-            } catch (RedisCommandExecutionException rcee) {
-                // This correctly catches the direct execution exception from the synchronous command
-                if (rcee.getMessage() != null && rcee.getMessage().equalsIgnoreCase("Unknown index name")) {
-                    log.error("Search failed: Redis Search Index '{}' does not exist. Please ensure it is created and data is indexed.", searchIndexName);
-                    // Decide your recovery action:
-                    log.info("Finished processing in {} ms.", System.currentTimeMillis() - startTime);
-                    return new SearchResults<>(); // Option 1: Return empty results gracefully
-                    // throw new IndexNotFoundException("Redis Search index not found: " + searchIndexName, rcee); // Option 2: Throw custom app exception
-                } else {
-                    // Handle other specific command execution errors (e.g., query syntax error, Redis memory issues)
-                    log.error("Redis command execution error during search on index '{}' for query '{}': {}", searchIndexName, query, rcee.getMessage(), rcee);
-                    throw new RuntimeException("Redis search command failed unexpectedly", rcee);
-                }
-            } catch (Exception e) { // Catch any other unexpected exceptions from the synchronous command
-                // This would catch things like a direct TimeoutException (if configured for sync clients),
-                // or other unforeseen runtime issues specific to the command's execution.
-                log.error("An unexpected error occurred during synchronous Redis search on index '{}' for query '{}': {}", searchIndexName, query, e.getMessage(), e);
-                throw new RuntimeException("Redis search failed due to unexpected error", e);
-            }
-        } catch (Exception e) { // This outer catch handles pool.borrowObject() failures and general connection issues
-            log.error("Failed to obtain connection from pool for search: {}", e.getMessage(), e);
-            throw new RuntimeException("Could not get Redis connection for search", e);
+    public CompletableFuture<BookSearchResults> search(@RequestParam(name = "q") String query) {
+        try {
+            return bookSearchService.search(query);
+        } catch (RejectedExecutionException e) {
+            throw searchBusy();
+        }
+    }
+
+    @GetMapping("/search/cache/stats")
+    public Map<String, Object> searchCacheStats() {
+        return searchResultCache.stats();
+    }
+
+    // structured search: filters, sort ("price", "-pageCount", ...), paging and RETURN projection in one FT.SEARCH
+    @GetMapping("/query")
+    public CompletableFuture<BookSearchPage> query(@RequestParam(name = "q", required = false) String query, //
+                                                   @RequestParam(required = false) String category, //
+                                                   @RequestParam(required = false) String author, //
+                                                   @RequestParam(required = false) String language, //
+                                                   @RequestParam(required = false) Double minPrice, //
+                                                   @RequestParam(required = false) Double maxPrice, //
+                                                   @RequestParam(required = false) String sort, //
+                                                   @RequestParam(defaultValue = "0") Integer offset, //
+                                                   @RequestParam(defaultValue = "10") Integer limit, //
+                                                   @RequestParam(required = false) List<String> fields, //
+                                                   @RequestParam(defaultValue = "false") boolean highlight, //
+                                                   @RequestParam(defaultValue = "false") boolean summarize) {
+        boolean descending = sort != null && sort.startsWith("-");
+        BookSearchRequest request = BookSearchRequest.builder() //
+                .query(query) //
+                .category(category) //
+                .author(author) //
+                .language(language) //
+                .minPrice(minPrice) //
+                .maxPrice(maxPrice) //
+                .sortBy(descending ? sort.substring(1) : sort) //
+                .descending(descending) //
+                .offset(offset) //
+                .limit(limit) //
+                .fields(fields) //
+                .highlight(highlight) //
+                .summarize(summarize) //
+                .build();
+        try {
+            return bookSearchService.searchBooks(request);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            throw searchBusy();
         }
     }
 
     @GetMapping("/authors")
-    public List<Suggestion<String>> authorAutoComplete(@RequestParam(name = "q") String query) {
-        long startTime = System.currentTimeMillis(); // Millisecond precision
-        try (StatefulRedisModulesConnection<String, String> connection = pool.borrowObject()) {
-            RedisModulesAsyncCommands<String, String> commands = connection.async();
-            log.info("Executing autocomplete search on key '{}' for query '{}'", autoCompleteKey, query);
-
-            try {
-                SuggetOptions options = SuggetOptions.builder().max(20L).build();
-
-                // *** CRITICAL FIX 1: Directly call ftSugget and store its future ***
-                RedisFuture<List<Suggestion<String>>> suggestionFuture = commands.ftSugget(autoCompleteKey, query, options);
-
-                // *** CRITICAL FIX 2: Call .get() on the actual future and get the correct return type ***
-                List<Suggestion<String>> suggestions = suggestionFuture.get(5, TimeUnit.SECONDS); // 5 seconds timeout for this operation
-
-                log.info(">>>> Autocomplete for query '{}' on key '{}' returned {} results.", query, autoCompleteKey, suggestions.size());
-                log.info("Finished processing in {} ms.", System.currentTimeMillis() - startTime);
-                return suggestions; // Return the correct type
-            } catch (ExecutionException e) {
-                // This block correctly catches the ExecutionException thrown by .get()
-                Throwable cause = e.getCause(); // Get the underlying cause of the ExecutionException
-
-                if (cause instanceof RedisCommandExecutionException) {
-                    RedisCommandExecutionException rcee = (RedisCommandExecutionException) cause;
-
-                    // FT.SUGGET generally doesn't throw "Unknown index name" but "Unknown key" if the suggester key doesn't exist
-                    if (rcee.getMessage() != null && rcee.getMessage().contains("Unknown key")) {
-                        log.error("Autocomplete failed: Redis Suggester Key '{}' does not exist. Please ensure it is created and populated with data.", autoCompleteKey);
-                        log.info("Finished processing in {} ms.", System.currentTimeMillis() - startTime);
-                        return new ArrayList<>(); // Option 1: Return empty list gracefully
-                    } else {
-                        // Handle other specific command execution errors (e.g., general Redis issues)
-                        log.error("Redis command execution error during autocomplete on key '{}' for query '{}': {}", autoCompleteKey, query, rcee.getMessage(), rcee);
-                        throw new RuntimeException("Redis autocomplete command failed unexpectedly", rcee);
-                    }
-                } else {
-                    // Handle other types of ExecutionException causes (e.g., network issues, client-side problems)
-                    log.error("Asynchronous command execution failed during autocomplete on key '{}' for query '{}' due to unexpected cause: {}", autoCompleteKey, query, e.getMessage(), e);
-                    throw new RuntimeException("Redis autocomplete failed due to unexpected future exception", e);
-                }
-            } catch (InterruptedException e) {
-                // Handle cases where the thread waiting for the result is interrupted
-                log.error("Autocomplete for query '{}' on key '{}' was interrupted: {}", query, autoCompleteKey, e.getMessage(), e);
-                Thread.currentThread().interrupt(); // Restore interrupted status
-                throw new RuntimeException("Redis autocomplete interrupted", e);
-            } catch (TimeoutException e) {
-                // Handle cases where the command takes longer than the specified timeout
-                log.error("Autocomplete for query '{}' on key '{}' timed out after 5 seconds: {}", query, autoCompleteKey, e.getMessage(), e);
-                throw new RuntimeException("Redis autocomplete timed out", e);
-            }
-        } catch (Exception e) { // This outer catch handles pool.borrowObject() failures and general connection issues
-            log.error("Failed to obtain connection from pool for autocomplete: {}", e.getMessage(), e);
-            throw new RuntimeException("Could not get Redis connection for autocomplete", e);
+    public CompletableFuture<List<AuthorSuggestion>> authorAutoComplete(@RequestParam(name = "q") String query) {
+        try {
+            return bookSearchService.suggestAuthors(query);
+        } catch (RejectedExecutionException e) {
+            throw searchBusy();
         }
     }
+
+    // the search queue is full: shed the request instead of queueing it behind work that would time out
+    private static ResponseStatusException searchBusy() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search is busy, try again");
+    }
 }
@@ -2,8 +2,11 @@ package com.mhg.app.chalice.controllers;
 
 import com.mhg.app.chalice.model.Cart;
 import com.mhg.app.chalice.model.CartItem;
+import com.mhg.app.chalice.model.CartSummary;
+import com.mhg.app.chalice.model.CartUpdate;
 import com.mhg.app.chalice.service.CartService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,6 +14,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/carts")
@@ -24,19 +30,30 @@ public class CartController {
         return cartService.get(id);
     }
 
+    @GetMapping("/{id}/summary")
+    public CartSummary getSummary(@PathVariable("id") String id) {
+        return cartService.getSummary(id) //
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "cart not found"));
+    }
+
     @PostMapping("/{id}")
-    public void addToCart(@PathVariable("id") String id, @RequestBody CartItem item) {
-        cartService.addToCart(id, item);
+    public CartUpdate addToCart(@PathVariable("id") String id, @RequestBody CartItem item) {
+        if (item.getQuantity() != null && item.getQuantity() < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "quantity must be at least 1");
+        }
+        return cartService.addToCart(id, item) //
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "cart or book not found"));
     }
 
     @DeleteMapping("/{id}")
-    public void removeFromCart(@PathVariable("id") String id, @RequestBody String isbn) {
-        cartService.removeFromCart(id, isbn);
+    public CartUpdate removeFromCart(@PathVariable("id") String id, @RequestBody String isbn) {
+        return cartService.removeFromCart(id, isbn) //
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "item not found in cart"));
     }
 
     @PostMapping("/{id}/checkout")
-    public void checkout(@PathVariable("id") String id) {
-        cartService.checkout(id);
+    public Map<String, Long> checkout(@PathVariable("id") String id) {
+        return cartService.checkout(id);
     }
 
 }
\ No newline at end of file
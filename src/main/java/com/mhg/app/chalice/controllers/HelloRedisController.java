@@ -2,7 +2,6 @@ package com.mhg.app.chalice.controllers;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,6 +11,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import redis.clients.jedis.JedisPooled;
 
 import java.util.AbstractMap;
 import java.util.Map;
@@ -21,21 +21,21 @@ import java.util.Map;
 public class HelloRedisController {
 
     @Autowired
-    private RedisTemplate<String, String> template;
+    private JedisPooled jedisPooled;
 
     private static final String STRING_KEY_PREFIX = "redi2read:strings:";
 
     @PostMapping("/strings")
     @ResponseStatus(HttpStatus.CREATED)
     public Map.Entry<String, String> setString(@RequestBody Map.Entry<String, String> kvp) {
-        template.opsForValue().set(STRING_KEY_PREFIX + kvp.getKey(), kvp.getValue());
+        jedisPooled.set(STRING_KEY_PREFIX + kvp.getKey(), kvp.getValue());
 
         return kvp;
     }
 
     @GetMapping("/strings/{key}")
     public Map.Entry<String, String> getString(@PathVariable("key") String key) {
-        String value = template.opsForValue().get(STRING_KEY_PREFIX + key);
+        String value = jedisPooled.get(STRING_KEY_PREFIX + key);
 
         if (value == null) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "key not found");
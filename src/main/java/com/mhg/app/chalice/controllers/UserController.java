@@ -23,14 +23,10 @@ public class UserController {
 
     @GetMapping
     public Iterable<User> all(@RequestParam(defaultValue = "") String email) {
-        long startTime = System.currentTimeMillis(); // Millisecond precision
         if (email.isEmpty()) {
-            Iterable<User> users = userRepository.findAll();
-            log.info("Finished processing in {} ms.", System.currentTimeMillis() - startTime);
-            return users;
+            return userRepository.findAll();
         }
         Optional<User> user = Optional.ofNullable(userRepository.findFirstByEmail(email));
-        log.info("Finished processing in {} ms.", System.currentTimeMillis() - startTime);
         return user.isPresent() ? List.of(user.get()) : Collections.emptyList();
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.mhg.app.chalice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code redis.commands} timers for the Jedis pool, one per command family (json, search, hash,
+ * set, zset, string, script, key, other) plus {@code pipeline} for pipelined and MULTI/EXEC
+ * batches, which are timed as a whole from flush to the last reply. Percentiles and histogram
+ * buckets come from {@code management.metrics.distribution.*} in application.properties.
+ */
+@Component
+public class RedisCommandMetrics {
+
+    public static final String TIMER = "redis.commands";
+    public static final String PIPELINE = "pipeline";
+
+    private static final Set<String> HASH = Set.of("HSET", "HGET", "HGETALL", "HMGET", "HMSET", "HDEL", "HEXISTS", "HINCRBY", //
+            "HINCRBYFLOAT", "HKEYS", "HVALS", "HLEN", "HSCAN", "HSETNX", "HSTRLEN");
+    private static final Set<String> SET = Set.of("SADD", "SREM", "SMEMBERS", "SISMEMBER", "SMISMEMBER", "SCARD", "SRANDMEMBER", //
+            "SPOP", "SSCAN", "SINTER", "SUNION", "SDIFF", "SINTERSTORE", "SUNIONSTORE", "SDIFFSTORE", "SMOVE");
+    private static final Set<String> STRING = Set.of("GET", "SET", "SETEX", "PSETEX", "SETNX", "MGET", "MSET", "INCR", "INCRBY", //
+            "DECR", "DECRBY", "GETDEL", "GETEX", "APPEND", "STRLEN");
+    private static final Set<String> SCRIPT = Set.of("EVAL", "EVALSHA", "EVAL_RO", "EVALSHA_RO", "SCRIPT", "FCALL", "FCALL_RO");
+    private static final Set<String> KEY = Set.of("DEL", "UNLINK", "EXISTS", "EXPIRE", "PEXPIRE", "TTL", "PTTL", "TYPE", "SCAN", "RENAME");
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public RedisCommandMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void record(ProtocolCommand command, long nanos) {
+        record(familyOf(SafeEncoder.encode(command.getRaw())), nanos);
+    }
+
+    public void record(String family, long nanos) {
+        timers.computeIfAbsent(family, key -> Timer.builder(TIMER) //
+                        .description("Latency of Redis commands issued through the Jedis pool") //
+                        .tag("client", "jedis") //
+                        .tag("family", key) //
+                        .register(registry)) //
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    static String familyOf(String command) {
+        String name = command.toUpperCase();
+        if (name.startsWith("JSON.")) {
+            return "json";
+        }
+        if (name.startsWith("FT.")) {
+            return "search";
+        }
+        if (name.startsWith("Z")) {
+            return "zset";
+        }
+        if (HASH.contains(name)) {
+            return "hash";
+        }
+        if (SET.contains(name)) {
+            return "set";
+        }
+        if (STRING.contains(name)) {
+            return "string";
+        }
+        if (SCRIPT.contains(name)) {
+            return "script";
+        }
+        if (KEY.contains(name)) {
+            return "key";
+        }
+        return "other";
+    }
+}
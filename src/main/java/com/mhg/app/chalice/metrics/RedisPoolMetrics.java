@@ -0,0 +1,44 @@
+package com.mhg.app.chalice.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.JedisPooled;
+
+import java.util.function.ToDoubleFunction;
+
+// redis.pool.* gauges (usage and borrow wait) for the commons-pool2 pool behind JedisPooled, tagged pool=jedis
+@Component
+public class RedisPoolMetrics implements MeterBinder {
+
+    private final JedisPooled jedisPooled;
+
+    public RedisPoolMetrics(JedisPooled jedisPooled) {
+        this.jedisPooled = jedisPooled;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "jedis", jedisPooled.getPool());
+    }
+
+    static void bind(MeterRegistry registry, String name, GenericObjectPool<?> pool) {
+        gauge(registry, "redis.pool.active", name, pool, GenericObjectPool::getNumActive, BaseUnits.CONNECTIONS);
+        gauge(registry, "redis.pool.idle", name, pool, GenericObjectPool::getNumIdle, BaseUnits.CONNECTIONS);
+        gauge(registry, "redis.pool.max", name, pool, GenericObjectPool::getMaxTotal, BaseUnits.CONNECTIONS);
+        gauge(registry, "redis.pool.waiters", name, pool, GenericObjectPool::getNumWaiters, BaseUnits.THREADS);
+        gauge(registry, "redis.pool.wait.mean", name, pool, each -> each.getMeanBorrowWaitDuration().toMillis(), BaseUnits.MILLISECONDS);
+        gauge(registry, "redis.pool.wait.max", name, pool, each -> each.getMaxBorrowWaitDuration().toMillis(), BaseUnits.MILLISECONDS);
+    }
+
+    private static void gauge(MeterRegistry registry, String meter, String name, GenericObjectPool<?> pool, //
+                              ToDoubleFunction<GenericObjectPool<?>> value, String unit) {
+        Gauge.builder(meter, pool, value) //
+                .tag("pool", name) //
+                .baseUnit(unit) //
+                .register(registry);
+    }
+}
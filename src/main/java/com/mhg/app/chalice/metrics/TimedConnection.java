@@ -0,0 +1,47 @@
+package com.mhg.app.chalice.metrics;
+
+import redis.clients.jedis.CommandObject;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisClientConfig;
+import redis.clients.jedis.JedisSocketFactory;
+
+import java.util.List;
+
+// Jedis connection that reports every round trip to RedisCommandMetrics
+class TimedConnection extends Connection {
+
+    private final RedisCommandMetrics metrics;
+
+    TimedConnection(JedisSocketFactory socketFactory, JedisClientConfig clientConfig, RedisCommandMetrics metrics) {
+        super(socketFactory, clientConfig);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public <T> T executeCommand(CommandObject<T> commandObject) {
+        // the super constructor already runs HELLO/AUTH/SELECT before metrics is assigned
+        if (metrics == null) {
+            return super.executeCommand(commandObject);
+        }
+        long start = System.nanoTime();
+        try {
+            return super.executeCommand(commandObject);
+        } finally {
+            metrics.record(commandObject.getArguments().getCommand(), System.nanoTime() - start);
+        }
+    }
+
+    // pipelines and transactions queue with sendCommand and collect every reply here
+    @Override
+    public List<Object> getMany(int count) {
+        if (metrics == null) {
+            return super.getMany(count);
+        }
+        long start = System.nanoTime();
+        try {
+            return super.getMany(count);
+        } finally {
+            metrics.record(RedisCommandMetrics.PIPELINE, System.nanoTime() - start);
+        }
+    }
+}
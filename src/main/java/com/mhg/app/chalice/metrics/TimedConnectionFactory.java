@@ -0,0 +1,57 @@
+package com.mhg.app.chalice.metrics;
+
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.ConnectionFactory;
+import redis.clients.jedis.DefaultJedisSocketFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisClientConfig;
+
+/**
+ * Pool factory for the application's {@code JedisPooled}: creates {@link TimedConnection}s and
+ * leaves validation, re-authentication and teardown to Jedis' own {@link ConnectionFactory}.
+ */
+public class TimedConnectionFactory implements PooledObjectFactory<Connection> {
+
+    private final HostAndPort hostAndPort;
+
+    private final JedisClientConfig clientConfig;
+
+    private final RedisCommandMetrics metrics;
+
+    private final ConnectionFactory delegate;
+
+    public TimedConnectionFactory(HostAndPort hostAndPort, JedisClientConfig clientConfig, RedisCommandMetrics metrics) {
+        this.hostAndPort = hostAndPort;
+        this.clientConfig = clientConfig;
+        this.metrics = metrics;
+        this.delegate = new ConnectionFactory(hostAndPort, clientConfig);
+    }
+
+    @Override
+    public PooledObject<Connection> makeObject() {
+        return new DefaultPooledObject<>(new TimedConnection(new DefaultJedisSocketFactory(hostAndPort, clientConfig), clientConfig, metrics));
+    }
+
+    @Override
+    public void activateObject(PooledObject<Connection> pooledObject) throws Exception {
+        delegate.activateObject(pooledObject);
+    }
+
+    @Override
+    public void passivateObject(PooledObject<Connection> pooledObject) throws Exception {
+        delegate.passivateObject(pooledObject);
+    }
+
+    @Override
+    public boolean validateObject(PooledObject<Connection> pooledObject) {
+        return delegate.validateObject(pooledObject);
+    }
+
+    @Override
+    public void destroyObject(PooledObject<Connection> pooledObject) throws Exception {
+        delegate.destroyObject(pooledObject);
+    }
+}
@@ -0,0 +1,14 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class AuthorSuggestion {
+
+    private String name;
+
+    // FT.SUGGET score: the author's book count, weighted by how much of the name the prefix covers
+    private double score;
+}
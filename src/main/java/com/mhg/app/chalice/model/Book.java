@@ -4,20 +4,16 @@ import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
-import org.springframework.data.annotation.Id;
-import org.springframework.data.annotation.Reference;
-import org.springframework.data.redis.core.RedisHash;
 
 import java.util.HashSet;
 import java.util.Set;
 
+// Stored as a RedisJSON document at Book:<isbn> by BookRepository, categories embedded
 @Data
-@RedisHash("Book")
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class Book {
 
-    @Id
     @EqualsAndHashCode.Include
     private String id;
 
@@ -33,10 +29,9 @@ public class Book {
 
     private Set<String> authors;
 
-    @Reference
     private Set<Category> categories = new HashSet<Category>();
 
     public void addCategory(Category category) {
         categories.add(category);
     }
-}
\ No newline at end of file
+}
@@ -19,9 +19,9 @@ public class BookRating {
     @Reference
     private User user;
 
+    // ISBN of the rated book
     @NotNull
-    @Reference
-    private Book book;
+    private String bookId;
 
     @NotNull
     private Integer rating;
@@ -0,0 +1,13 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Data;
+
+// body of POST /api/books/{isbn}/rating
+@Data
+public class BookRatingRequest {
+
+    private String userId;
+
+    // 1..app.ratingStars
+    private Integer rating;
+}
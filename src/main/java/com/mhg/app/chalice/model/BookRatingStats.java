@@ -0,0 +1,19 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class BookRatingStats {
+
+    private String isbn;
+    private long count;
+    private long sum;
+    private double average;
+
+    // stars -> number of ratings with that many stars
+    private Map<Integer, Long> histogram;
+}
@@ -0,0 +1,24 @@
+package com.mhg.app.chalice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+// Compact search result row, only the projected fields are set (and serialized)
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookSearchHit {
+
+    private String id;
+    private String title;
+    private String subtitle;
+    private String description;
+    private List<String> authors;
+    private Double price;
+    private String currency;
+    private String language;
+    private String thumbnail;
+}
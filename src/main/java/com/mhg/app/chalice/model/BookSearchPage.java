@@ -0,0 +1,16 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BookSearchPage {
+
+    private long total;
+    private int offset;
+    private int limit;
+    private List<BookSearchHit> books;
+}
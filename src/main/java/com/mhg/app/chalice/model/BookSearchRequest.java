@@ -0,0 +1,32 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BookSearchRequest {
+
+    // free-text part of the query, "*" when only filters are given
+    private String query;
+
+    private String category;
+    private String author;
+    private String language;
+    private Double minPrice;
+    private Double maxPrice;
+
+    private String sortBy;
+    private boolean descending;
+
+    private int offset;
+    private int limit;
+
+    // RETURN projection, null means the default listing fields
+    private List<String> fields;
+
+    private boolean highlight;
+    private boolean summarize;
+}
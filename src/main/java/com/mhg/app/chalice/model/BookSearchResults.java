@@ -0,0 +1,21 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BookSearchResults {
+
+    private long total;
+    private List<ScoredBook> books;
+
+    @Data
+    @Builder
+    public static class ScoredBook {
+        private double score;
+        private Book book;
+    }
+}
@@ -0,0 +1,16 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BookSlice {
+
+    private List<Book> books;
+
+    // opaque token for the following slice, null once the listing is exhausted
+    private String next;
+}
@@ -3,11 +3,13 @@ package com.mhg.app.chalice.model;
 import lombok.Builder;
 import lombok.Data;
 import lombok.Singular;
+import lombok.extern.jackson.Jacksonized;
 
 import java.util.Set;
 
 @Data
 @Builder
+@Jacksonized
 public class Cart {
 
     private String id;
@@ -17,14 +19,35 @@ public class Cart {
     @Singular
     private Set<CartItem> cartItems;
 
+    // Stored with the document and kept current by the cart scripts, so a summary can be read
+    // without the items. itemCount is the number of distinct items, like count().
+    private Double total;
+
+    private Integer itemCount;
+
     public Integer count() {
-        return getCartItems().size();
+        return getItemCount();
+    }
+
+    public Integer getItemCount() {
+        return itemCount != null ? itemCount : getCartItems().size();
     }
 
     public Double getTotal() {
+        return total != null ? total : sumItems();
+    }
+
+    // recomputes total and itemCount after the items were changed in memory
+    public Cart refreshTotals() {
+        this.total = sumItems();
+        this.itemCount = getCartItems().size();
+        return this;
+    }
+
+    private Double sumItems() {
         return cartItems //
                 .stream() //
                 .mapToDouble(ci -> ci.getPrice() * ci.getQuantity()) //
                 .sum();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CartGenerationReport {
+
+    private long carts;
+    private long checkouts;
+    private long failedCheckouts;
+    private long millis;
+    private double cartsPerSecond;
+}
@@ -2,9 +2,11 @@ package com.mhg.app.chalice.model;
 
 import lombok.Builder;
 import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
 
 @Data
 @Builder
+@Jacksonized
 public class CartItem {
     private String isbn;
     private Double price;
@@ -0,0 +1,15 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CartSummary {
+
+    private String id;
+
+    private Double total;
+
+    private Integer itemCount;
+}
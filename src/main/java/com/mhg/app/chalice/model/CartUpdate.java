@@ -0,0 +1,13 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CartUpdate {
+
+    private CartItem item;
+
+    private Double total;
+}
@@ -0,0 +1,19 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CatalogLoadReport {
+
+    private int files;
+    private long books;
+    private long millis;
+    private double booksPerSecond;
+
+    // files that could not be parsed, the rest of the load still goes through
+    private List<String> failed;
+}
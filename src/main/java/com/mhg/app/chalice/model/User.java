@@ -54,11 +54,10 @@ public class User {
         roles.add(role);
     }
 
-    @Reference
-    @JsonIdentityReference(alwaysAsId = true)
-    private Set<Book> books = new HashSet<Book>();
+    // ISBNs of owned books; books live in RedisJSON, outside Spring Data's @Reference resolution
+    private Set<String> books = new HashSet<String>();
 
     public void addBook(Book book) {
-        books.add(book);
+        books.add(book.getId());
     }
 }
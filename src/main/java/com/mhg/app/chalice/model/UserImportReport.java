@@ -0,0 +1,20 @@
+package com.mhg.app.chalice.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class UserImportReport {
+
+    private int received;
+    private int imported;
+
+    // emails that already belong to a user (or repeat within the import), plus entries missing email/password
+    private List<String> skipped;
+
+    private long hashMillis;
+    private long writeMillis;
+}
@@ -0,0 +1,126 @@
+package com.mhg.app.chalice.repository;
+
+import com.mhg.app.chalice.model.AuthorSuggestion;
+import com.mhg.app.chalice.model.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.JedisPooled;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the {@code app.autoCompleteKey} suggester in step with the catalog. Next to the suggester
+ * a {@code <key>:counts} hash holds how many books carry each author name. Book writes maintain
+ * both inside {@code write-books.lua}, atomically with the document write (see
+ * {@link BookRepository}): the script reads the stored authors, moves each changed author's count
+ * and sets the suggestion score to it (or removes the suggestion at zero), and bumps
+ * {@code <key>:writes}. A {@code <key>:complete} marker, written only when a full rebuild has been
+ * swapped in, tells whether the counts can be trusted.
+ */
+@Slf4j
+@Component
+public class AuthorSuggestionIndex {
+
+    private static final LuaScript SWAP_SCRIPT = LuaScript.fromClasspath("scripts/swap-author-suggestions.lua");
+
+    // a rebuild raced by book writes is redone; after this many attempts it is left to the next start
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    private final JedisPooled jedisPooled;
+
+    @Value("${app.autoCompleteKey:author-autocomplete}")
+    private String autoCompleteKey;
+
+    @Value("${app.bookBatchSize:500}")
+    private int batchSize;
+
+    public AuthorSuggestionIndex(JedisPooled jedisPooled) {
+        this.jedisPooled = jedisPooled;
+    }
+
+    // FT.SUGGET WITHSCORES; an unknown suggester key just returns no suggestions
+    public List<AuthorSuggestion> suggest(String prefix, int max) {
+        return jedisPooled.ftSugGetWithScores(autoCompleteKey, prefix, false, max).stream() //
+                .map(tuple -> AuthorSuggestion.builder().name(tuple.getElement()).score(tuple.getScore()).build()) //
+                .toList();
+    }
+
+    // counts created by book writes alone (or by a rebuild that never finished) don't count
+    public boolean exists() {
+        return jedisPooled.exists(getCompleteKey());
+    }
+
+    /**
+     * Rebuilds the suggester from scratch: authors are counted in memory first (one entry per
+     * distinct name, however many books) and then written in pipelined batches of
+     * {@code app.bookBatchSize} into temporary keys, so there is never more than one batch in
+     * flight. {@code swap-author-suggestions.lua} then renames them over the live keys and writes
+     * the completion marker, but only if {@code <key>:writes} still holds the value read before
+     * counting: otherwise book writes changed counts the rebuild may have missed, and it is redone.
+     * An interrupted or abandoned rebuild leaves the live keys alone and is redone on the next start.
+     */
+    public long rebuild(Supplier<Stream<Book>> books) {
+        String suggestionsKey = autoCompleteKey + ":rebuild";
+        String countsKey = getCountsKey() + ":rebuild";
+        for (int attempt = 1; attempt <= REBUILD_ATTEMPTS; attempt++) {
+            String writes = jedisPooled.get(getWritesKey());
+            Map<String, Long> counts = new HashMap<>();
+            try (Stream<Book> stream = books.get()) {
+                stream.forEach(book -> {
+                    if (book.getAuthors() != null) {
+                        book.getAuthors().stream().filter(author -> author != null && !author.isBlank()) //
+                                .forEach(author -> counts.merge(author, 1L, Long::sum));
+                    }
+                });
+            }
+
+            jedisPooled.del(suggestionsKey, countsKey);
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+                    Map<String, String> batch = new HashMap<>();
+                    for (Map.Entry<String, Long> entry : entries.subList(from, Math.min(from + batchSize, entries.size()))) {
+                        pipeline.ftSugAdd(suggestionsKey, entry.getKey(), entry.getValue());
+                        batch.put(entry.getKey(), entry.getValue().toString());
+                    }
+                    pipeline.hset(countsKey, batch);
+                    pipeline.sync();
+                }
+            }
+            Object swapped = SWAP_SCRIPT.execute(jedisPooled, //
+                    List.of(getWritesKey(), suggestionsKey, countsKey, autoCompleteKey, getCountsKey(), getCompleteKey()), //
+                    List.of(writes != null ? writes : "0", Integer.toString(counts.size())));
+            if (Long.valueOf(1).equals(swapped)) {
+                log.info(">>>> AuthorSuggestionIndex | Rebuilt '{}' with {} distinct authors", autoCompleteKey, counts.size());
+                return counts.size();
+            }
+            log.info(">>>> AuthorSuggestionIndex | Book writes changed author counts during rebuild attempt {} of '{}'", attempt, autoCompleteKey);
+        }
+        jedisPooled.del(suggestionsKey, countsKey);
+        log.warn(">>>> AuthorSuggestionIndex | Gave up rebuilding '{}' after {} attempts, the next start retries", autoCompleteKey, REBUILD_ATTEMPTS);
+        return 0;
+    }
+
+    public String getKey() {
+        return autoCompleteKey;
+    }
+
+    public String getCountsKey() {
+        return autoCompleteKey + ":counts";
+    }
+
+    public String getWritesKey() {
+        return autoCompleteKey + ":writes";
+    }
+
+    private String getCompleteKey() {
+        return autoCompleteKey + ":complete";
+    }
+}
@@ -0,0 +1,98 @@
+package com.mhg.app.chalice.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mhg.app.chalice.model.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process, size-bounded (W-TinyLFU) cache in front of {@link BookRepository#findById(String)}.
+ * {@link BookRepository} invalidates on every write and delete: its write script publishes the ISBN
+ * (or {@link #ALL} after a bulk write) on {@link #INVALIDATION_CHANNEL}, so every node drops it,
+ * and the writing node drops it locally right away. The TTL bounds staleness if an invalidation
+ * message is ever missed.
+ * <p>
+ * Cached {@link Book} instances are shared between callers and must be treated as read-only.
+ */
+@Slf4j
+@Component
+public class BookNearCache implements MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "book-cache-invalidation";
+    public static final String ALL = "*";
+
+    private final BookRepository bookRepository;
+
+    private final Cache<String, Book> cache;
+
+    public BookNearCache(BookRepository bookRepository, //
+                         @Value("${app.bookCache.maxSize:10000}") long maxSize, //
+                         @Value("${app.bookCache.ttl:PT10M}") Duration ttl) {
+        this.bookRepository = bookRepository;
+        this.cache = Caffeine.newBuilder() //
+                .maximumSize(maxSize) //
+                .expireAfterWrite(ttl) //
+                .recordStats() //
+                .build();
+    }
+
+    public Book findById(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        // misses (unknown ISBNs) are not cached, Caffeine skips null values
+        return cache.get(isbn, bookRepository::findById);
+    }
+
+    // resolves every ISBN in one call, only the ones not held locally go to Redis
+    public Map<String, Book> findAllById(Collection<String> isbns) {
+        return cache.getAll(isbns, this::loadAll);
+    }
+
+    private Map<String, Book> loadAll(Set<? extends String> isbns) {
+        Map<String, Book> books = new HashMap<>();
+        bookRepository.findAllById(List.copyOf(isbns)).forEach(book -> books.put(book.getId(), book));
+        return books;
+    }
+
+    // this node only; other nodes are reached through INVALIDATION_CHANNEL
+    public void invalidate(String isbn) {
+        if (ALL.equals(isbn)) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(isbn);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String isbn = new String(message.getBody(), StandardCharsets.UTF_8);
+        invalidate(isbn);
+        log.debug("Invalidated near cache entry '{}'", isbn);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("size", cache.estimatedSize());
+        response.put("hits", stats.hitCount());
+        response.put("misses", stats.missCount());
+        response.put("evictions", stats.evictionCount());
+        response.put("hitRate", stats.hitRate());
+        return response;
+    }
+}
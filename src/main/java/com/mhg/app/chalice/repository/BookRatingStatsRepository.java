@@ -0,0 +1,196 @@
+package com.mhg.app.chalice.repository;
+
+import com.mhg.app.chalice.model.BookRating;
+import com.mhg.app.chalice.model.BookRatingStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.stereotype.Repository;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.resps.Tuple;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Ratings together with a per-book aggregate kept up to date as they arrive. Every rating is
+ * written by {@code rate-book.lua}, which stores the Spring Data {@code BookRating} hash and, in
+ * the same step, bumps {@code BookRatingStats:<isbn>} (count, sum, {@code stars:<n>} histogram)
+ * and the book's average in the {@code BookRatingStats:top-rated} sorted set. Reading a book's
+ * rating is one HGETALL and the top-rated list one ZREVRANGE.
+ * <p>
+ * A user has at most one rating per book: the rating id is derived from the user id and the ISBN,
+ * so rating a book again overwrites the same hash and the script swaps the previous stars out of
+ * the aggregate instead of counting the user twice.
+ */
+@Slf4j
+@Repository
+public class BookRatingStatsRepository {
+
+    private static final String KEY_PREFIX = "BookRatingStats:";
+    public static final String TOP_RATED_KEY = KEY_PREFIX + "top-rated";
+    private static final LuaScript RATE_BOOK_SCRIPT = LuaScript.fromClasspath("scripts/rate-book.lua");
+
+    private final JedisPooled jedisPooled;
+
+    private final RedisConverter redisConverter;
+
+    @Value("${app.ratingBatchSize:500}")
+    private int batchSize;
+
+    public BookRatingStatsRepository(JedisPooled jedisPooled, RedisConverter redisConverter) {
+        this.jedisPooled = jedisPooled;
+        this.redisConverter = redisConverter;
+    }
+
+    public double rate(BookRating rating) {
+        RatingWrite write = toWrite(rating);
+        return Double.parseDouble(RATE_BOOK_SCRIPT.execute(jedisPooled, write.keys(), write.args()).toString());
+    }
+
+    // each chunk of app.ratingBatchSize is a single pipeline of EVALSHA calls
+    public long rateAll(List<BookRating> ratings) {
+        RATE_BOOK_SCRIPT.load(jedisPooled);
+        for (int from = 0; from < ratings.size(); from += batchSize) {
+            List<BookRating> chunk = ratings.subList(from, Math.min(from + batchSize, ratings.size()));
+            try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+                chunk.forEach(rating -> {
+                    RatingWrite write = toWrite(rating);
+                    RATE_BOOK_SCRIPT.queue(pipeline, write.keys(), write.args());
+                });
+                pipeline.sync();
+            }
+        }
+        return ratings.size();
+    }
+
+    public BookRatingStats findByIsbn(String isbn) {
+        Map<String, String> hash = jedisPooled.hgetAll(getKey(isbn));
+        return hash.isEmpty() ? null : toStats(isbn, hash);
+    }
+
+    public List<BookRatingStats> findTopRated(int limit) {
+        List<Tuple> top = jedisPooled.zrevrangeWithScores(TOP_RATED_KEY, 0, limit - 1);
+        Map<String, Response<Map<String, String>>> hashes = new LinkedHashMap<>();
+        try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+            top.forEach(tuple -> hashes.put(tuple.getElement(), pipeline.hgetAll(getKey(tuple.getElement()))));
+            pipeline.sync();
+        }
+        List<BookRatingStats> stats = new ArrayList<>(hashes.size());
+        hashes.forEach((isbn, hash) -> stats.add(toStats(isbn, hash.get())));
+        return stats;
+    }
+
+    public boolean exists() {
+        return jedisPooled.exists(TOP_RATED_KEY);
+    }
+
+    /**
+     * Recomputes every aggregate from the stored ratings, for data written before the aggregates
+     * existed. Ratings are read in pipelined HMGET batches; returns the number of ratings folded in.
+     */
+    public long rebuild() {
+        Map<String, long[]> sums = new HashMap<>();
+        Map<String, Map<Integer, Long>> histograms = new HashMap<>();
+        long ratings = ScanBatchIterator.stream(jedisPooled, BookRating.class.getSimpleName(), batchSize).mapToLong(ids -> {
+            List<Response<List<String>>> fields = new ArrayList<>(ids.size());
+            try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+                ids.forEach(id -> fields.add(pipeline.hmget(BookRating.class.getSimpleName() + ":" + id, "bookId", "rating")));
+                pipeline.sync();
+            }
+            long folded = 0;
+            for (Response<List<String>> response : fields) {
+                String isbn = response.get().get(0);
+                String stars = response.get().get(1);
+                if (isbn != null && stars != null) {
+                    long[] countAndSum = sums.computeIfAbsent(isbn, key -> new long[2]);
+                    countAndSum[0]++;
+                    countAndSum[1] += Integer.parseInt(stars);
+                    histograms.computeIfAbsent(isbn, key -> new TreeMap<>()).merge(Integer.valueOf(stars), 1L, Long::sum);
+                    folded++;
+                }
+            }
+            return folded;
+        }).sum();
+
+        List<String> isbns = new ArrayList<>(sums.keySet());
+        jedisPooled.del(TOP_RATED_KEY);
+        for (int from = 0; from < isbns.size(); from += batchSize) {
+            try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+                for (String isbn : isbns.subList(from, Math.min(from + batchSize, isbns.size()))) {
+                    long[] countAndSum = sums.get(isbn);
+                    Map<String, String> hash = new HashMap<>();
+                    hash.put("count", Long.toString(countAndSum[0]));
+                    hash.put("sum", Long.toString(countAndSum[1]));
+                    histograms.get(isbn).forEach((stars, count) -> hash.put("stars:" + stars, Long.toString(count)));
+                    pipeline.del(getKey(isbn));
+                    pipeline.hset(getKey(isbn), hash);
+                    pipeline.zadd(TOP_RATED_KEY, (double) countAndSum[1] / countAndSum[0], isbn);
+                }
+                pipeline.sync();
+            }
+        }
+        log.info(">>>> BookRatingStatsRepository | Rebuilt rating aggregates for {} books from {} ratings", isbns.size(), ratings);
+        return ratings;
+    }
+
+    private RatingWrite toWrite(BookRating rating) {
+        rating.setId(ratingId(rating));
+        // Spring Data's converter produces the exact hash bookRatingRepo.save would write
+        RedisData data = new RedisData();
+        redisConverter.write(rating, data);
+
+        List<String> args = new ArrayList<>();
+        args.add(rating.getId());
+        args.add(rating.getBookId());
+        args.add(rating.getRating().toString());
+        data.getBucket().rawMap().forEach((field, value) -> {
+            args.add(new String(field, StandardCharsets.UTF_8));
+            args.add(new String(value, StandardCharsets.UTF_8));
+        });
+        List<String> keys = List.of(data.getKeyspace() + ":" + rating.getId(), data.getKeyspace(), getKey(rating.getBookId()), TOP_RATED_KEY);
+        return new RatingWrite(keys, args);
+    }
+
+    private static BookRatingStats toStats(String isbn, Map<String, String> hash) {
+        long count = Long.parseLong(hash.getOrDefault("count", "0"));
+        long sum = Long.parseLong(hash.getOrDefault("sum", "0"));
+        Map<Integer, Long> histogram = new TreeMap<>();
+        hash.forEach((field, value) -> {
+            if (field.startsWith("stars:")) {
+                histogram.put(Integer.valueOf(field.substring("stars:".length())), Long.valueOf(value));
+            }
+        });
+        return BookRatingStats.builder() //
+                .isbn(isbn) //
+                .count(count) //
+                .sum(sum) //
+                .average(count > 0 ? (double) sum / count : 0) //
+                .histogram(histogram) //
+                .build();
+    }
+
+    // the same id for every rating a user gives a book; random only for ratings without a user
+    static String ratingId(BookRating rating) {
+        if (rating.getUser() == null || rating.getUser().getId() == null) {
+            return UUID.randomUUID().toString();
+        }
+        return UUID.nameUUIDFromBytes((rating.getUser().getId() + ":" + rating.getBookId()).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    public static String getKey(String isbn) {
+        return KEY_PREFIX + isbn;
+    }
+
+    private record RatingWrite(List<String> keys, List<String> args) {
+    }
+}
@@ -1,16 +1,417 @@
 package com.mhg.app.chalice.repository;
 
+import com.google.gson.Gson;
 import com.mhg.app.chalice.model.Book;
-import org.springframework.data.repository.PagingAndSortingRepository;
+import com.mhg.app.chalice.model.BookSlice;
+import com.mhg.app.chalice.model.Category;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.json.Path2;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Books as RedisJSON documents at {@code Book:<isbn>}, with the ISBNs kept in the {@code Book} set
+ * (the same layout Spring Data's {@code @RedisHash("Book")} used, so keys and SRANDMEMBER callers
+ * are unchanged). A book is read with a single JSON command, authors are a plain array
+ * and categories are embedded, so nothing has to be resolved through references. The
+ * {@code books-by-title-idx} sorted set ({@code <lowercased title>\0<isbn>} members, all scored 0)
+ * keeps the title order for keyset listings; {@code books-by-title-idx:members} maps each ISBN to
+ * its current member so a retitled book's old member can be found.
+ * <p>
+ * Writes and deletes go through {@code write-books.lua}, one script call per chunk: the document,
+ * the id set, the title index and the author suggestion counts change in one atomic step, and the
+ * script reads what it replaces itself, so concurrent writers of the same book cannot skew them.
+ * The same call bumps the {@link CatalogVersion} and publishes the near cache invalidation, so
+ * saving or deleting a book is a single round trip.
+ */
+@Slf4j
 @Repository
-public interface BookRepository extends PagingAndSortingRepository<Book, String>  {
-    Iterable<Book> findAll();
+public class BookRepository {
+
+    public static final String ID_SET = "Book";
+    private static final String KEY_PREFIX = ID_SET + ":";
+    private static final String USER_ID_SET = "User";
+    private static final String RATING_ID_SET = "BookRating";
+    private static final Gson GSON = new Gson();
+    private static final Path2 TITLE_PATH = Path2.of("$.title");
+    private static final LuaScript WRITE_SCRIPT = LuaScript.fromClasspath("scripts/write-books.lua");
+    private static final LuaScript INDEX_TITLES_SCRIPT = LuaScript.fromClasspath("scripts/index-titles.lua");
+    public static final String TITLE_INDEX = "books-by-title-idx";
+    private static final String TITLE_MEMBERS = TITLE_INDEX + ":members";
+    // written once the title index has been filled from the stored books
+    private static final String TITLE_INDEX_COMPLETE = TITLE_INDEX + ":complete";
+
+    private final JedisPooled jedisPooled;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private AuthorSuggestionIndex authorSuggestionIndex;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    // lazy: the near cache reads through this repository, this repository invalidates the near cache
+    @Autowired
+    @Lazy
+    private BookNearCache bookNearCache;
+
+    @Value("${app.bookBatchSize:500}")
+    private int batchSize;
+
+    public BookRepository(JedisPooled jedisPooled) {
+        this.jedisPooled = jedisPooled;
+    }
+
+    public Book save(Book book) {
+        writeChunk(List.of(book));
+        return book;
+    }
+
+    // books are written in chunks of app.bookBatchSize, each chunk is one script call
+    public Iterable<Book> saveAll(Iterable<Book> books) {
+        List<Book> saved = new ArrayList<>();
+        List<Book> chunk = new ArrayList<>(batchSize);
+        for (Book book : books) {
+            chunk.add(book);
+            if (chunk.size() >= batchSize) {
+                writeChunk(chunk);
+                saved.addAll(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk);
+            saved.addAll(chunk);
+        }
+        return saved;
+    }
+
+    // bulk loads: the same chunked writes as saveAll, returning how many books were written
+    public long importAll(List<Book> books) {
+        saveAll(books);
+        return books.size();
+    }
+
+    // a book repeated within the chunk is written once, the last occurrence wins
+    private void writeChunk(List<Book> chunk) {
+        Map<String, Book> byIsbn = new LinkedHashMap<>();
+        chunk.forEach(book -> byIsbn.put(book.getId(), book));
+        Map<String, String> documents = new LinkedHashMap<>();
+        byIsbn.forEach((isbn, book) -> documents.put(isbn, GSON.toJson(book)));
+        Map<String, String> members = new HashMap<>();
+        byIsbn.forEach((isbn, book) -> members.put(isbn, titleMember(book.getTitle(), isbn)));
+        write(documents, members);
+    }
+
+    /**
+     * One write-books.lua call for the given documents (an empty document deletes the book), then
+     * the new catalog version and the near cache entries are applied locally; other nodes get both
+     * from the messages the script published.
+     */
+    private void write(Map<String, String> documents, Map<String, String> members) {
+        String invalidation = documents.size() == 1 ? documents.keySet().iterator().next() : BookNearCache.ALL;
+        List<String> keys = new ArrayList<>(List.of(ID_SET, TITLE_INDEX, TITLE_MEMBERS, //
+                authorSuggestionIndex.getKey(), authorSuggestionIndex.getCountsKey(), authorSuggestionIndex.getWritesKey(), //
+                CatalogVersion.KEY));
+        List<String> args = new ArrayList<>(List.of(CatalogVersion.CHANNEL, BookNearCache.INVALIDATION_CHANNEL, invalidation));
+        documents.forEach((isbn, document) -> {
+            keys.add(getKey(isbn));
+            args.add(isbn);
+            args.add(document);
+            args.add(members.getOrDefault(isbn, ""));
+        });
+        long version = (Long) WRITE_SCRIPT.execute(jedisPooled, keys, args);
+        catalogVersion.advanceTo(version);
+        bookNearCache.invalidate(invalidation);
+    }
+
+    // current titles of the given books, read in one pipeline; null for books without a JSON document
+    private Map<String, String> titles(Collection<String> isbns) {
+        Map<String, Response<Object>> replies = new HashMap<>();
+        try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+            isbns.forEach(isbn -> replies.put(isbn, pipeline.jsonGet(getKey(isbn), TITLE_PATH)));
+            pipeline.sync();
+        }
+        Map<String, String> titles = new HashMap<>();
+        replies.forEach((isbn, reply) -> titles.put(isbn, titleOf(reply.get())));
+        return titles;
+    }
+
+    // JSON.GET with a $ path replies with an array of matches; null when the document does not exist
+    private static String titleOf(Object reply) {
+        if (reply instanceof JSONArray matches && !matches.isEmpty() && !matches.isNull(0)) {
+            return matches.get(0).toString();
+        }
+        return null;
+    }
+
+    public Book findById(String isbn) {
+        Object jsonString = jedisPooled.jsonGet(getKey(isbn));
+        return (jsonString != null) ? GSON.fromJson(jsonString.toString(), Book.class) : null;
+    }
+
+    public Iterable<Book> findAllById(Iterable<String> isbns) {
+        List<Book> books = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(batchSize);
+        for (String isbn : isbns) {
+            chunk.add(isbn);
+            if (chunk.size() >= batchSize) {
+                books.addAll(fetch(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            books.addAll(fetch(chunk));
+        }
+        return books;
+    }
+
+    public Iterable<Book> findAll() {
+        return streamAll().toList();
+    }
+
+    // SSCAN over the Book set, documents loaded in JSON.MGET batches of app.bookBatchSize
+    public Stream<Book> streamAll() {
+        return ScanBatchIterator.stream(jedisPooled, ID_SET, batchSize) //
+                .flatMap(isbns -> fetch(isbns).stream());
+    }
+
+    // pages over the ISBNs in sorted order so page boundaries are stable between calls
+    public Page<Book> findAll(Pageable pageable) {
+        List<String> isbns = new ArrayList<>(jedisPooled.smembers(ID_SET));
+        Collections.sort(isbns);
+        int from = (int) Math.min(pageable.getOffset(), isbns.size());
+        int to = Math.min(from + pageable.getPageSize(), isbns.size());
+        List<Book> books = from < to ? fetch(isbns.subList(from, to)) : Collections.emptyList();
+        return new PageImpl<>(books, pageable, isbns.size());
+    }
+
+    /**
+     * Title-ordered listing over the {@code books-by-title-idx} sorted set. Every slice is one
+     * ZRANGEBYLEX after the last member of the previous slice plus one JSON.MGET of {@code size}
+     * documents, so a slice deep into the catalog costs the same as the first one. The token is that
+     * last member, so it holds no server state: it never expires and can be replayed.
+     */
+    public BookSlice findSlice(String token, int size) {
+        String start = (token == null || token.isEmpty()) ? "-" : "(" + decodeToken(token);
+        List<String> members = jedisPooled.zrangeByLex(TITLE_INDEX, start, "+", 0, size);
+        List<String> isbns = members.stream().map(member -> member.substring(member.lastIndexOf('\0') + 1)).toList();
+        List<Book> books = isbns.isEmpty() ? Collections.emptyList() : fetch(isbns);
+        String next = members.size() == size ? encodeToken(members.get(members.size() - 1)) : null;
+        return BookSlice.builder().books(books).next(next).build();
+    }
+
+    static String titleMember(String title, String isbn) {
+        return (title != null ? title.toLowerCase(Locale.ROOT) : "") + "\0" + isbn;
+    }
+
+    static String encodeToken(String member) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(member.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeToken(String token) {
+        String member;
+        try {
+            member = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor token", e);
+        }
+        if (member.indexOf('\0') < 0) {
+            throw new IllegalArgumentException("Malformed cursor token");
+        }
+        return member;
+    }
+
+    /**
+     * Fills the title index from the stored books unless a previous run completed. Books that
+     * already have a member were written since and are left alone ({@code index-titles.lua}), so
+     * writes running meanwhile are kept. Returns the number of books indexed.
+     */
+    public long ensureTitleIndex() {
+        if (jedisPooled.exists(TITLE_INDEX_COMPLETE)) {
+            return 0;
+        }
+        long indexed = ScanBatchIterator.stream(jedisPooled, ID_SET, batchSize).mapToLong(isbns -> {
+            List<String> args = new ArrayList<>(isbns.size() * 2);
+            titles(isbns).forEach((isbn, title) -> {
+                args.add(isbn);
+                args.add(titleMember(title, isbn));
+            });
+            return (Long) INDEX_TITLES_SCRIPT.execute(jedisPooled, List.of(TITLE_INDEX, TITLE_MEMBERS), args);
+        }).sum();
+        jedisPooled.set(TITLE_INDEX_COMPLETE, Long.toString(indexed));
+        log.info(">>>> BookRepository | Indexed {} book titles", indexed);
+        return indexed;
+    }
+
+    public long count() {
+        return jedisPooled.scard(ID_SET);
+    }
+
+    public void deleteById(String isbn) {
+        write(Map.of(isbn, ""), Map.of());
+    }
+
+    private List<Book> fetch(List<String> isbns) {
+        String[] keys = isbns.stream().map(BookRepository::getKey).toArray(String[]::new);
+        List<JSONArray> jsonArrays = jedisPooled.jsonMGet(Path2.ROOT_PATH, keys);
+        return jsonArrays.stream().filter(Objects::nonNull) // Filter out nulls (for non-existent keys)
+                .filter(jsonArray -> !jsonArray.isEmpty() && jsonArray.get(0) instanceof JSONObject) //
+                .map(jsonArray -> GSON.fromJson(jsonArray.get(0).toString(), Book.class)) //
+                .toList();
+    }
+
+    /**
+     * Converts books still stored as Spring Data hashes into JSON documents, and rewrites the
+     * {@code Book:<isbn>} references users and ratings hold into plain ISBNs. Keys that are already JSON are
+     * skipped, so it is safe to run on every start. Returns the number of books converted.
+     */
+    public long migrateFromHashes() {
+        Map<String, Category> categories = new HashMap<>();
+        categoryRepository.findAll().forEach(category -> categories.put(category.getId(), category));
+
+        long converted = ScanBatchIterator.stream(jedisPooled, ID_SET, batchSize) //
+                .mapToLong(isbns -> migrateBooks(isbns, categories)) //
+                .sum();
+        if (converted > 0) {
+            long users = ScanBatchIterator.stream(jedisPooled, USER_ID_SET, batchSize) //
+                    .mapToLong(this::migrateUserBooks) //
+                    .sum();
+            long ratings = ScanBatchIterator.stream(jedisPooled, RATING_ID_SET, batchSize) //
+                    .mapToLong(this::migrateRatingBooks) //
+                    .sum();
+            log.info(">>>> BookRepository | Migrated {} book hashes to JSON, {} user book references and {} rating book references", //
+                    converted, users, ratings);
+        }
+        return converted;
+    }
+
+    private long migrateBooks(List<String> isbns, Map<String, Category> categories) {
+        Map<String, Response<String>> types = new HashMap<>();
+        try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+            isbns.forEach(isbn -> types.put(isbn, pipeline.type(getKey(isbn))));
+            pipeline.sync();
+        }
+        List<String> hashes = isbns.stream().filter(isbn -> "hash".equals(types.get(isbn).get())).toList();
+        if (hashes.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Response<Map<String, String>>> fields = new HashMap<>();
+        try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+            hashes.forEach(isbn -> fields.put(isbn, pipeline.hgetAll(getKey(isbn))));
+            pipeline.sync();
+        }
+        // write-books.lua replaces the hash with the document and counts the book's authors
+        writeChunk(hashes.stream().map(isbn -> fromHash(isbn, fields.get(isbn).get(), categories)).toList());
+        return hashes.size();
+    }
+
+    private long migrateUserBooks(List<String> userIds) {
+        Map<String, Response<Map<String, String>>> fields = new HashMap<>();
+        try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+            userIds.forEach(id -> fields.put(id, pipeline.hgetAll(USER_ID_SET + ":" + id)));
+            pipeline.sync();
+        }
+        long rewritten = 0;
+        try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+            for (Map.Entry<String, Response<Map<String, String>>> user : fields.entrySet()) {
+                for (Map.Entry<String, String> field : user.getValue().get().entrySet()) {
+                    if (field.getKey().startsWith("books.[") && field.getValue().startsWith(KEY_PREFIX)) {
+                        String isbn = field.getValue().substring(KEY_PREFIX.length());
+                        pipeline.hset(USER_ID_SET + ":" + user.getKey(), field.getKey(), isbn);
+                        rewritten++;
+                    }
+                }
+            }
+            pipeline.sync();
+        }
+        return rewritten;
+    }
 
-    int count();
+    // ratings saved with the old @Reference Book hold book = Book:<isbn>; BookRating now reads bookId
+    private long migrateRatingBooks(List<String> ratingIds) {
+        Map<String, Response<String>> references = new HashMap<>();
+        try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+            ratingIds.forEach(id -> references.put(id, pipeline.hget(RATING_ID_SET + ":" + id, "book")));
+            pipeline.sync();
+        }
+        long rewritten = 0;
+        try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+            for (Map.Entry<String, Response<String>> rating : references.entrySet()) {
+                String reference = rating.getValue().get();
+                if (reference != null && reference.startsWith(KEY_PREFIX)) {
+                    String key = RATING_ID_SET + ":" + rating.getKey();
+                    pipeline.hset(key, "bookId", reference.substring(KEY_PREFIX.length()));
+                    pipeline.hdel(key, "book");
+                    rewritten++;
+                }
+            }
+            pipeline.sync();
+        }
+        return rewritten;
+    }
 
-    void save(Book book);
+    // Spring Data flattened the entity into title/price/... fields, authors.[n] values and
+    // categories.[n] references of the form Category:<id>
+    private static Book fromHash(String isbn, Map<String, String> hash, Map<String, Category> categories) {
+        Book book = new Book();
+        book.setId(isbn);
+        book.setTitle(hash.get("title"));
+        book.setSubtitle(hash.get("subtitle"));
+        book.setDescription(hash.get("description"));
+        book.setLanguage(hash.get("language"));
+        book.setThumbnail(hash.get("thumbnail"));
+        book.setCurrency(hash.get("currency"));
+        book.setInfoLink(hash.get("infoLink"));
+        if (hash.get("pageCount") != null) {
+            book.setPageCount(Long.valueOf(hash.get("pageCount")));
+        }
+        if (hash.get("price") != null) {
+            book.setPrice(Double.valueOf(hash.get("price")));
+        }
+        List<String> authors = new ArrayList<>();
+        hash.forEach((field, value) -> {
+            if (field.startsWith("authors.[")) {
+                authors.add(value);
+            } else if (field.startsWith("categories.[")) {
+                Category category = categories.get(value.substring(value.indexOf(':') + 1));
+                if (category != null) {
+                    book.addCategory(category);
+                }
+            }
+        });
+        book.setAuthors(new LinkedHashSet<>(authors));
+        return book;
+    }
 
-    Book findById(String isbn);
-}
\ No newline at end of file
+    public static String getKey(String isbn) {
+        return KEY_PREFIX + isbn;
+    }
+}
@@ -2,24 +2,30 @@ package com.mhg.app.chalice.repository;
 
 import com.google.gson.Gson;
 import com.mhg.app.chalice.model.Cart;
+import com.mhg.app.chalice.model.CartSummary;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONArray;
 import org.json.JSONObject;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.HashOperations;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.SetOperations;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.AbstractTransaction;
 import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.PipeliningBase;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.json.Path2;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 @Slf4j
@@ -29,42 +35,81 @@ public class CartRepository implements CrudRepository<Cart, String> {
     private final JedisPooled jedisPooled;
     private static final Gson GSON = new Gson(); // Initialize your JSON (de)serializer
     private final static String idPrefix = Cart.class.getName();
+    public static final String CARTS_BY_USER_ID_IDX = "carts-by-user-id-idx";
+    private static final Path2 TOTAL_PATH = Path2.of("$.total");
+    private static final Path2 ITEM_COUNT_PATH = Path2.of("$.itemCount");
 
-    @Autowired
-    private RedisTemplate<String, String> template;
+    @Value("${app.cartBatchSize:500}")
+    private int batchSize;
 
     public CartRepository(JedisPooled jedisPooled) {
         this.jedisPooled = jedisPooled;
     }
 
-    private SetOperations<String, String> redisSets() {
-        return template.opsForSet();
-    }
-
-    private HashOperations<String, String, String> redisHash() {
-        return template.opsForHash();
-    }
-
     // TESTED
+    // JSON document, id set and user index go out as one MULTI/EXEC on a single connection
     @Override
     public <S extends Cart> S save(S cart) {
-        // set cart id
-        if (cart.getId() == null) {
-            cart.setId(UUID.randomUUID().toString());
+        try (AbstractTransaction tx = jedisPooled.multi()) {
+            queueSave(tx, cart);
+            tx.exec();
         }
-        String key = getKey(cart);
-        String jsonString = GSON.toJson(cart); // Serialize POJO to JSON string
-        jedisPooled.jsonSet(key, Path2.ROOT_PATH, jsonString);
-        redisSets().add(idPrefix, key);
-//        log.info("cart user id {} cart id {}", cart.getUserId(), cart.getId());
-        redisHash().put("carts-by-user-id-idx", cart.getUserId(), cart.getId());
         return cart;
     }
 
     // TESTED
+    // carts are written in chunks of app.cartBatchSize, each chunk is one MULTI/EXEC round trip
     @Override
     public <S extends Cart> Iterable<S> saveAll(Iterable<S> carts) {
-        return StreamSupport.stream(carts.spliterator(), false).map(cart -> save(cart)).collect(Collectors.toList());
+        List<S> saved = new ArrayList<>();
+        List<S> chunk = new ArrayList<>(batchSize);
+        for (S cart : carts) {
+            chunk.add(cart);
+            if (chunk.size() >= batchSize) {
+                saveChunk(chunk);
+                saved.addAll(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk);
+            saved.addAll(chunk);
+        }
+        return saved;
+    }
+
+    private <S extends Cart> void saveChunk(List<S> chunk) {
+        try (AbstractTransaction tx = jedisPooled.multi()) {
+            chunk.forEach(cart -> queueSave(tx, cart));
+            tx.exec();
+        }
+    }
+
+    // bulk seeding: plain pipelines of app.cartBatchSize carts, without MULTI/EXEC around each chunk
+    public long importAll(List<Cart> carts) {
+        for (int from = 0; from < carts.size(); from += batchSize) {
+            List<Cart> chunk = carts.subList(from, Math.min(from + batchSize, carts.size()));
+            try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+                chunk.forEach(cart -> queueSave(pipeline, cart));
+                pipeline.sync();
+            }
+        }
+        return carts.size();
+    }
+
+    private void queueSave(PipeliningBase tx, Cart cart) {
+        // set cart id
+        if (cart.getId() == null) {
+            cart.setId(UUID.randomUUID().toString());
+        }
+        String key = getKey(cart);
+        cart.refreshTotals();
+        String jsonString = GSON.toJson(cart); // Serialize POJO to JSON string
+        tx.jsonSet(key, Path2.ROOT_PATH, jsonString);
+        tx.sadd(idPrefix, key);
+        if (cart.getUserId() != null) {
+            tx.hset(CARTS_BY_USER_ID_IDX, cart.getUserId(), cart.getId());
+        }
     }
 
     // TESTED
@@ -79,39 +124,73 @@ public class CartRepository implements CrudRepository<Cart, String> {
         return Optional.ofNullable(cart);
     }
 
+    // Reads only $.total and $.itemCount; carts saved before those fields existed fall back to
+    // a full load.
+    public Optional<CartSummary> findSummaryById(String id) {
+        Object json = jedisPooled.jsonGet(getKey(id), TOTAL_PATH, ITEM_COUNT_PATH);
+        if (!(json instanceof JSONObject paths)) {
+            return Optional.empty();
+        }
+        JSONArray total = paths.optJSONArray(TOTAL_PATH.toString());
+        JSONArray itemCount = paths.optJSONArray(ITEM_COUNT_PATH.toString());
+        if (total == null || total.isEmpty() || itemCount == null || itemCount.isEmpty()) {
+            return findById(id).map(cart -> CartSummary.builder() //
+                    .id(id) //
+                    .total(cart.getTotal()) //
+                    .itemCount(cart.getItemCount()) //
+                    .build());
+        }
+        return Optional.of(CartSummary.builder() //
+                .id(id) //
+                .total(total.getDouble(0)) //
+                .itemCount(itemCount.getInt(0)) //
+                .build());
+    }
+
     // TESTED
     @Override
     public boolean existsById(String id) {
-        return template.hasKey(getKey(id));
+        return jedisPooled.exists(getKey(id));
     }
 
     // TESTED
+    // keyed by id, since SSCAN can hand out the same member twice (see streamAll)
     @Override
     public Iterable<Cart> findAll() {
-        String[] keys = redisSets().members(idPrefix).stream().toArray(String[]::new);
-        List<JSONArray> jsonArrays = jedisPooled.jsonMGet(Path2.ROOT_PATH, keys);
-        List<Cart> carts = jsonArrays.stream().filter(Objects::nonNull) // Filter out nulls (for non-existent keys)
-                .map(jsonArray -> {
-                    if (jsonArray.isEmpty()) {
-                        return null; // No JSON document found for this key
-                    }
-                    Object firstElement = jsonArray.get(0);
-                    if (firstElement instanceof JSONObject) {
-                        String jsonString = firstElement.toString();
-                        return GSON.fromJson(jsonString, Cart.class);
-                    }
-                    return null; // Return null if unexpected type
-                }).toList();
-        return carts;
+        Map<String, Cart> carts = new LinkedHashMap<>();
+        streamAll().forEach(cart -> carts.putIfAbsent(cart.getId(), cart));
+        return new ArrayList<>(carts.values());
+    }
+
+    // Lazily walks the Cart id set with SSCAN and loads the documents in JSON.MGET batches of
+    // app.cartBatchSize, so neither Redis nor the heap ever sees the whole set at once.
+    // SSCAN may return a key more than once if the set is rehashed mid-scan.
+    public Stream<Cart> streamAll() {
+        return ScanBatchIterator.stream(jedisPooled, idPrefix, batchSize) //
+                .flatMap(keys -> fetch(keys).stream());
     }
 
     // TESTED
     @Override
     public Iterable<Cart> findAllById(Iterable<String> ids) {
-        String[] keys = StreamSupport.stream(ids.spliterator(), false)
-                .map(id -> getKey(id)).toArray(String[]::new);
-        List<JSONArray> jsonArrays = jedisPooled.jsonMGet(Path2.ROOT_PATH, keys);
-        List<Cart> carts = jsonArrays.stream().filter(Objects::nonNull) // Filter out nulls (for non-existent keys)
+        List<Cart> carts = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(batchSize);
+        for (String id : ids) {
+            chunk.add(getKey(id));
+            if (chunk.size() >= batchSize) {
+                carts.addAll(fetch(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            carts.addAll(fetch(chunk));
+        }
+        return carts;
+    }
+
+    private List<Cart> fetch(List<String> keys) {
+        List<JSONArray> jsonArrays = jedisPooled.jsonMGet(Path2.ROOT_PATH, keys.toArray(String[]::new));
+        return jsonArrays.stream().filter(Objects::nonNull) // Filter out nulls (for non-existent keys)
                 .map(jsonArray -> {
                     if (jsonArray.isEmpty()) {
                         return null; // No JSON document found for this key
@@ -122,26 +201,25 @@ public class CartRepository implements CrudRepository<Cart, String> {
                         return GSON.fromJson(jsonString, Cart.class);
                     }
                     return null; // Return null if unexpected type
-                }).toList();
-        return carts;
+                }) //
+                .filter(Objects::nonNull) //
+                .toList();
     }
 
     // TESTED
     @Override
     public long count() {
-        Long sizeIdPrefix = redisSets().size(idPrefix);
-        return (sizeIdPrefix != null) ? sizeIdPrefix : -1;
+        return jedisPooled.scard(idPrefix);
     }
 
     // TESTED
     @Override
     public void deleteById(String id) {
-        jedisPooled.del(getKey(id));
-        Long removedCount = redisSets().remove(idPrefix, getKey(id));
-        if (removedCount != null && removedCount > 0) {
-            log.info("Successfully removed {} member(s) from set '{}'.", removedCount, getKey(id));
+        long removedCount = removeKeys(List.of(getKey(id)));
+        if (removedCount > 0) {
+            log.debug("Successfully removed {} member(s) from set '{}'.", removedCount, getKey(id));
         } else {
-            log.warn("No members found or removed from set '{}' for the provided carts.", getKey(id));
+            log.debug("No members found or removed from set '{}' for the provided carts.", getKey(id));
         }
     }
 
@@ -155,12 +233,13 @@ public class CartRepository implements CrudRepository<Cart, String> {
     @Override
     public void deleteAllById(Iterable<? extends String> keys) {
         Set<String> keySet = StreamSupport.stream(keys.spliterator(), false)
+                .map(CartRepository::getKey)
                 .collect(Collectors.toSet());
-        Long removedCount = redisSets().remove(idPrefix, keySet.toArray());
-        if (removedCount != null && removedCount > 0) {
-            log.info("Successfully removed {} member(s) from set '{}'.", removedCount, keys);
+        long removedCount = removeKeys(List.copyOf(keySet));
+        if (removedCount > 0) {
+            log.debug("Successfully removed {} member(s) from set '{}'.", removedCount, keys);
         } else {
-            log.warn("No members found or removed from set '{}' for the provided carts.", keys);
+            log.debug("No members found or removed from set '{}' for the provided carts.", keys);
         }
     }
 
@@ -171,19 +250,19 @@ public class CartRepository implements CrudRepository<Cart, String> {
                 .stream(carts.spliterator(), false) //
                 .map(cart -> String.format("%s:%s", idPrefix, cart.getId())) //
                 .toList();
-        Long removedCount = redisSets().remove(idPrefix, keys.toArray());
-        if (removedCount != null && removedCount > 0) {
-            log.info("Successfully removed {} member(s) from set '{}'.", removedCount, keys);
+        long removedCount = removeKeys(keys);
+        if (removedCount > 0) {
+            log.debug("Successfully removed {} member(s) from set '{}'.", removedCount, keys);
         } else {
-            log.warn("No members found or removed from set '{}' for the provided carts.", keys);
+            log.debug("No members found or removed from set '{}' for the provided carts.", keys);
         }
     }
 
     // TESTED
     @Override
     public void deleteAll() {
-        Boolean deleted = redisSets().getOperations().delete(idPrefix); // Or just redisOperations.delete(setKey);
-        if (Boolean.TRUE.equals(deleted)) {
+        boolean deleted = jedisPooled.del(idPrefix) > 0;
+        if (deleted) {
             log.info("Successfully deleted Redis Set with key: {}. All members removed.", idPrefix);
         } else {
             // deleted will be false if the key did not exist in Redis.
@@ -191,9 +270,22 @@ public class CartRepository implements CrudRepository<Cart, String> {
         }
     }
 
+    // documents and id set members go in one MULTI/EXEC; returns the number of set members removed
+    private long removeKeys(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        try (AbstractTransaction tx = jedisPooled.multi()) {
+            tx.del(keys.toArray(String[]::new));
+            Response<Long> removed = tx.srem(idPrefix, keys.toArray(String[]::new));
+            tx.exec();
+            return removed.get();
+        }
+    }
+
     // TESTED
     public Optional<Cart> findByUserId(Long id) {
-        String cartId = redisHash().get("carts-by-user-id-idx", id.toString());
+        String cartId = jedisPooled.hget(CARTS_BY_USER_ID_IDX, id.toString());
         return (cartId != null) ? findById(cartId) : Optional.empty();
     }
 
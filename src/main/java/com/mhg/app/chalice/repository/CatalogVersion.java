@@ -0,0 +1,67 @@
+package com.mhg.app.chalice.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.JedisPooled;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the book catalog, bumped on every book write. The counter lives in Redis
+ * ({@link #KEY}) and each bump is published on {@link #CHANNEL}, so every node knows the current
+ * version locally without a round trip; caches derived from the catalog key their entries by it.
+ * {@link BookRepository} bumps and publishes inside its write script and reports the new version
+ * through {@link #advanceTo}, so the writing node sees it without waiting for the message.
+ * The counter is also re-read every {@code app.catalogVersion.refreshInterval}, so a node that
+ * missed a message (e.g. while the listener reconnected) catches up within that interval.
+ */
+@Slf4j
+@Component
+public class CatalogVersion implements MessageListener {
+
+    public static final String KEY = "catalog:version";
+    public static final String CHANNEL = "catalog-version";
+
+    private final JedisPooled jedisPooled;
+
+    private final AtomicLong current = new AtomicLong(-1);
+
+    private final long refreshNanos;
+
+    // System.nanoTime() at which the next caller re-reads the counter
+    private final AtomicLong refreshDue;
+
+    public CatalogVersion(JedisPooled jedisPooled, @Value("${app.catalogVersion.refreshInterval:PT5S}") Duration refreshInterval) {
+        this.jedisPooled = jedisPooled;
+        this.refreshNanos = refreshInterval.toNanos();
+        this.refreshDue = new AtomicLong(System.nanoTime() + refreshNanos);
+    }
+
+    public long current() {
+        long now = System.nanoTime();
+        long due = refreshDue.get();
+        // only the caller that wins the CAS pays the GET, everyone else keeps using the local value
+        if (current.get() < 0 || (now - due >= 0 && refreshDue.compareAndSet(due, now + refreshNanos))) {
+            String stored = jedisPooled.get(KEY);
+            current.accumulateAndGet(stored != null ? Long.parseLong(stored) : 0, Math::max);
+        }
+        return current.get();
+    }
+
+    // a version this node bumped itself; never moves backwards
+    public void advanceTo(long version) {
+        current.accumulateAndGet(version, Math::max);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        long version = Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8));
+        current.accumulateAndGet(version, Math::max);
+        log.debug("Catalog version is now {}", version);
+    }
+}
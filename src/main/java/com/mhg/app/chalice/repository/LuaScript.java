@@ -0,0 +1,73 @@
+package com.mhg.app.chalice.repository;
+
+import org.springframework.core.io.ClassPathResource;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.PipeliningBase;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * A Lua script loaded from the classpath and run with EVALSHA, falling back to EVAL (which also
+ * caches the script server-side) the first time a Redis node has not seen it.
+ */
+public class LuaScript {
+
+    private final String source;
+    private final String sha1;
+
+    private LuaScript(String source) {
+        this.source = source;
+        this.sha1 = sha1(source);
+    }
+
+    public static LuaScript fromClasspath(String path) {
+        try (InputStream inputStream = new ClassPathResource(path).getInputStream()) {
+            return new LuaScript(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load Lua script " + path, e);
+        }
+    }
+
+    public Object execute(JedisPooled jedisPooled, List<String> keys, List<String> args) {
+        try {
+            return jedisPooled.evalsha(sha1, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedisPooled.eval(source, keys, args);
+        }
+    }
+
+    // pipelines cannot fall back to EVAL per call, so the script is loaded up front (SCRIPT LOAD is idempotent)
+    public void load(JedisPooled jedisPooled) {
+        jedisPooled.scriptLoad(source);
+    }
+
+    public Response<Object> queue(PipeliningBase pipeline, List<String> keys, List<String> args) {
+        return pipeline.evalsha(sha1, keys, args);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    private static String sha1(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+}
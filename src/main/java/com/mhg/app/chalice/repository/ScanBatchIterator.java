@@ -0,0 +1,64 @@
+package com.mhg.app.chalice.repository;
+
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Walks the members of a set with SSCAN and hands them out in batches of at most batchSize.
+// COUNT is only a hint to SSCAN, so oversized replies are buffered and split. SSCAN may return
+// a member more than once if the set is rehashed mid-scan.
+class ScanBatchIterator implements Iterator<List<String>> {
+    private final JedisPooled jedisPooled;
+    private final String key;
+    private final int batchSize;
+    private final ScanParams params;
+    private final Deque<String> buffer = new ArrayDeque<>();
+    private String cursor = ScanParams.SCAN_POINTER_START;
+    private boolean complete;
+
+    ScanBatchIterator(JedisPooled jedisPooled, String key, int batchSize) {
+        this.jedisPooled = jedisPooled;
+        this.key = key;
+        this.batchSize = batchSize;
+        this.params = new ScanParams().count(batchSize);
+    }
+
+    static Stream<List<String>> stream(JedisPooled jedisPooled, String key, int batchSize) {
+        Iterator<List<String>> batches = new ScanBatchIterator(jedisPooled, key, batchSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (buffer.isEmpty() && !complete) {
+            ScanResult<String> result = jedisPooled.sscan(key, cursor, params);
+            cursor = result.getCursor();
+            complete = result.isCompleteIteration();
+            buffer.addAll(result.getResult());
+        }
+        return !buffer.isEmpty();
+    }
+
+    @Override
+    public List<String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<String> members = new ArrayList<>(Math.min(batchSize, buffer.size()));
+        while (!buffer.isEmpty() && members.size() < batchSize) {
+            members.add(buffer.poll());
+        }
+        return members;
+    }
+}
@@ -0,0 +1,134 @@
+package com.mhg.app.chalice.serialization;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Value serializer for objects cached in Redis, i.e. the search-cache Redis tier. Values are written
+ * in the configured {@link ValueFormat} behind a small header, and LZ4-compressed once the encoded
+ * payload reaches {@code compressThreshold} bytes (and compression actually saves space):
+ * <pre>
+ *   [MAGIC][HEADER_VERSION][format id][flags] ([uncompressed length: int] if FLAG_LZ4) payload
+ * </pre>
+ * Reads dispatch on the header, not on the configured format, so nodes writing different formats
+ * (or a format switch mid-TTL) can share keys. Values without a header that start with the Java
+ * serialization stream magic are read as legacy JDK values. A header version this build does not
+ * know is rejected, so a newer layout must be readable everywhere before anything writes it.
+ * The uncompressed length in an LZ4 header is checked against {@link #MAX_UNCOMPRESSED_LENGTH}
+ * and LZ4's maximum ratio before anything is allocated for it.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    public static final byte MAGIC = (byte) 0xCA;
+    public static final byte HEADER_VERSION = 1;
+    public static final byte FLAG_LZ4 = 1;
+
+    // far above any cached value; a larger length header is corrupt or hostile, not a value
+    public static final int MAX_UNCOMPRESSED_LENGTH = 64 * 1024 * 1024;
+
+    // LZ4 cannot expand a block by more than this, each extra length byte covers at most 255 bytes
+    private static final int MAX_LZ4_RATIO = 255;
+
+    private static final int HEADER_SIZE = 4;
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final ValueFormat format;
+
+    private final int compressThreshold;
+
+    private final Map<ValueFormat, RedisSerializer<Object>> serializers = new EnumMap<>(ValueFormat.class);
+
+    // compressThreshold < 0 disables compression
+    public CompactRedisSerializer(ValueFormat format, int compressThreshold) {
+        this.format = format;
+        this.compressThreshold = compressThreshold;
+        for (ValueFormat each : ValueFormat.values()) {
+            serializers.put(each, each.newSerializer());
+        }
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+        byte[] payload = serializers.get(format).serialize(value);
+        if (compressThreshold >= 0 && payload.length >= compressThreshold) {
+            byte[] compressed = new byte[COMPRESSOR.maxCompressedLength(payload.length)];
+            int length = COMPRESSOR.compress(payload, 0, payload.length, compressed, 0, compressed.length);
+            if (length + Integer.BYTES < payload.length) {
+                return ByteBuffer.allocate(HEADER_SIZE + Integer.BYTES + length) //
+                        .put(MAGIC).put(HEADER_VERSION).put(format.id()).put(FLAG_LZ4) //
+                        .putInt(payload.length) //
+                        .put(compressed, 0, length) //
+                        .array();
+            }
+        }
+        return ByteBuffer.allocate(HEADER_SIZE + payload.length) //
+                .put(MAGIC).put(HEADER_VERSION).put(format.id()).put((byte) 0) //
+                .put(payload) //
+                .array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            if (isJavaSerialized(bytes)) {
+                return serializers.get(ValueFormat.JDK).deserialize(bytes);
+            }
+            throw new SerializationException("Value has no format header");
+        }
+        if (bytes.length < HEADER_SIZE || bytes[1] != HEADER_VERSION) {
+            throw new SerializationException("Unsupported format header version " + (bytes.length > 1 ? bytes[1] : -1));
+        }
+        ValueFormat valueFormat = ValueFormat.of(bytes[2]);
+        if (valueFormat == null) {
+            throw new SerializationException("Unknown value format " + bytes[2]);
+        }
+
+        byte[] payload;
+        if ((bytes[3] & FLAG_LZ4) != 0) {
+            if (bytes.length < HEADER_SIZE + Integer.BYTES) {
+                throw new SerializationException("Truncated LZ4 header");
+            }
+            int length = ByteBuffer.wrap(bytes, HEADER_SIZE, Integer.BYTES).getInt();
+            long compressedLength = bytes.length - HEADER_SIZE - Integer.BYTES;
+            if (length < 0 || length > MAX_UNCOMPRESSED_LENGTH || length > compressedLength * MAX_LZ4_RATIO) {
+                throw new SerializationException("Invalid uncompressed length " + length + " for " + compressedLength + " compressed bytes");
+            }
+            payload = new byte[length];
+            try {
+                DECOMPRESSOR.decompress(bytes, HEADER_SIZE + Integer.BYTES, payload, 0, length);
+            } catch (LZ4Exception e) {
+                throw new SerializationException("Corrupt LZ4 payload", e);
+            }
+        } else {
+            payload = new byte[bytes.length - HEADER_SIZE];
+            System.arraycopy(bytes, HEADER_SIZE, payload, 0, payload.length);
+        }
+        return serializers.get(valueFormat).deserialize(payload);
+    }
+
+    public ValueFormat getFormat() {
+        return format;
+    }
+
+    // ObjectOutputStream's STREAM_MAGIC, what JdkSerializationRedisSerializer wrote before the header existed
+    private static boolean isJavaSerialized(byte[] bytes) {
+        return bytes.length > 1 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
+    }
+}
@@ -0,0 +1,57 @@
+package com.mhg.app.chalice.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Payload encodings understood by {@link CompactRedisSerializer}. The id is written into every
+ * value's header and must never be reused for a different encoding.
+ */
+public enum ValueFormat {
+
+    // Java serialization, only for Serializable values (the search-cache Entry is); kept so the format can be compared and rolled back
+    JDK(1),
+    // Jackson JSON with a type hint property, readable with redis-cli
+    JSON(2),
+    // the same Jackson model in the binary Smile encoding: no quotes, shared property names
+    SMILE(3);
+
+    private final byte id;
+
+    ValueFormat(int id) {
+        this.id = (byte) id;
+    }
+
+    public byte id() {
+        return id;
+    }
+
+    public static ValueFormat of(byte id) {
+        for (ValueFormat format : values()) {
+            if (format.id == id) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    RedisSerializer<Object> newSerializer() {
+        return switch (this) {
+            case JDK -> new JdkSerializationRedisSerializer();
+            case JSON -> jackson(new ObjectMapper());
+            case SMILE -> jackson(new ObjectMapper(new SmileFactory()));
+        };
+    }
+
+    // Spring's serializer adds default typing (@class) and the cache NullValue handling on top of any ObjectMapper
+    private static RedisSerializer<Object> jackson(ObjectMapper mapper) {
+        mapper.findAndRegisterModules();
+        return GenericJackson2JsonRedisSerializer.builder() //
+                .objectMapper(mapper) //
+                .defaultTyping(true) //
+                .build();
+    }
+}
@@ -0,0 +1,225 @@
+package com.mhg.app.chalice.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mhg.app.chalice.model.Book;
+import com.mhg.app.chalice.model.CatalogLoadReport;
+import com.mhg.app.chalice.model.Category;
+import com.mhg.app.chalice.repository.BookRepository;
+import com.mhg.app.chalice.repository.CategoryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bulk catalog ingestion. Every file is stream-parsed on its own worker with Jackson's
+ * {@link JsonParser}, one book object at a time, and written in pipelined batches of
+ * {@code app.bookBatchSize} through {@link BookRepository#importAll}, so neither a whole file nor
+ * one round trip per book is ever needed. Used for the initial load and for admin imports of new
+ * catalog files; re-importing a book simply overwrites its document. Admin imports are capped at
+ * {@code app.catalogImport.maxBooks} books and run one at a time in the background.
+ */
+@Slf4j
+@Service
+public class BookCatalogLoader {
+
+    public static final String CLASSPATH_CATALOG = "classpath:/data/books/*.json";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final BookRepository bookRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final ExecutorService loaderExecutor;
+
+    private final ExecutorService importExecutor;
+
+    private final AtomicReference<CompletableFuture<CatalogLoadReport>> job = new AtomicReference<>();
+
+    @Value("${app.bookBatchSize:500}")
+    private int batchSize;
+
+    @Value("${app.catalogImport.maxBooks:10000}")
+    private int maxBooks;
+
+    public BookCatalogLoader(BookRepository bookRepository, CategoryRepository categoryRepository, //
+                             WorkerExecutors workerExecutors, //
+                             @Value("${app.catalogLoaderThreads:0}") int catalogLoaderThreads) {
+        this.bookRepository = bookRepository;
+        this.categoryRepository = categoryRepository;
+        int threads = catalogLoaderThreads > 0 ? catalogLoaderThreads : Runtime.getRuntime().availableProcessors();
+        this.loaderExecutor = workerExecutors.newExecutor("catalog", threads);
+        this.importExecutor = workerExecutors.newExecutor("catalog-import", 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+        loaderExecutor.shutdown();
+    }
+
+    public CatalogLoadReport loadClasspathCatalog() throws IOException {
+        Map<String, InputStreamSource> sources = new LinkedHashMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(CLASSPATH_CATALOG)) {
+            sources.put(resource.getFilename(), resource);
+        }
+        return load(sources);
+    }
+
+    // admin import of one category's books: validated, one at a time, in the background so no request
+    // thread waits on it. The books go through the same parser as a <category>_books.json file.
+    public synchronized CompletableFuture<CatalogLoadReport> submit(String categoryName, List<?> books) {
+        if (categoryName == null || categoryName.isBlank()) {
+            throw new IllegalArgumentException("category is required");
+        }
+        if (books == null || books.isEmpty() || books.size() > maxBooks) {
+            throw new IllegalArgumentException("books must hold between 1 and " + maxBooks + " entries");
+        }
+        CompletableFuture<CatalogLoadReport> running = job.get();
+        if (running != null && !running.isDone()) {
+            throw new IllegalStateException("A catalog import is already in progress");
+        }
+        byte[] content;
+        try {
+            content = mapper.writeValueAsBytes(books);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("books could not be read: " + e.getOriginalMessage());
+        }
+        Map<String, InputStreamSource> sources = Map.of(categoryName.strip() + "_books.json", new ByteArrayResource(content));
+        CompletableFuture<CatalogLoadReport> next = CompletableFuture.supplyAsync(() -> load(sources), importExecutor);
+        next.exceptionally(throwable -> {
+            log.error(">>>> BookCatalogLoader | Catalog import failed: {}", throwable.getMessage(), throwable);
+            return null;
+        });
+        job.set(next);
+        return next;
+    }
+
+    // state of the last admin import
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("maxBooks", maxBooks);
+        CompletableFuture<CatalogLoadReport> last = job.get();
+        if (last == null) {
+            status.put("state", "IDLE");
+        } else if (!last.isDone()) {
+            status.put("state", "RUNNING");
+        } else if (last.isCompletedExceptionally()) {
+            status.put("state", "FAILED");
+            status.put("failure", last.exceptionNow().getMessage());
+        } else {
+            status.put("state", "DONE");
+            status.put("report", last.resultNow());
+        }
+        return status;
+    }
+
+    // file name -> content; the category is the file name up to its last '_' (java_books.json -> java)
+    public CatalogLoadReport load(Map<String, InputStreamSource> sources) {
+        long startTime = System.currentTimeMillis(); // Millisecond precision
+        Map<String, CompletableFuture<Category>> categories = new ConcurrentHashMap<>();
+        categoryRepository.findAll().forEach(category -> categories.put(category.getName(), CompletableFuture.completedFuture(category)));
+
+        Map<String, Future<Long>> futures = new LinkedHashMap<>();
+        sources.forEach((fileName, source) -> futures.put(fileName, loaderExecutor.submit(() -> loadFile(fileName, source, categories))));
+
+        long books = 0;
+        List<String> failed = new ArrayList<>();
+        for (Map.Entry<String, Future<Long>> future : futures.entrySet()) {
+            try {
+                books += future.getValue().get();
+            } catch (ExecutionException e) {
+                log.error(">>>> BookCatalogLoader | Unable to import books from {}: {}", future.getKey(), e.getCause().getMessage());
+                failed.add(future.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(">>>> BookCatalogLoader | Catalog load interrupted", e);
+            }
+        }
+        long millis = Math.max(1, System.currentTimeMillis() - startTime);
+        CatalogLoadReport report = CatalogLoadReport.builder() //
+                .files(sources.size()) //
+                .books(books) //
+                .millis(millis) //
+                .booksPerSecond(books * 1000.0 / millis) //
+                .failed(failed) //
+                .build();
+        log.info(">>>> BookCatalogLoader | Loaded {} books from {} files in {} ms ({} books/sec)", books, sources.size(), millis, //
+                Math.round(report.getBooksPerSecond()));
+        return report;
+    }
+
+    // Only the thread whose putIfAbsent wins saves a new category, outside any map compute; the others
+    // wait for that save. A failed save fails every file of the category and drops the entry, so the
+    // map never hands out a category that is not stored.
+    private Category resolveCategory(String name, Map<String, CompletableFuture<Category>> categories) {
+        CompletableFuture<Category> pending = new CompletableFuture<>();
+        CompletableFuture<Category> existing = categories.putIfAbsent(name, pending);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            Category created = Category.builder().id(UUID.randomUUID().toString()).name(name).build();
+            categoryRepository.save(created);
+            pending.complete(created);
+            return created;
+        } catch (Throwable e) {
+            categories.remove(name, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private long loadFile(String fileName, InputStreamSource source, Map<String, CompletableFuture<Category>> categories) throws IOException {
+        Category category = resolveCategory(categoryName(fileName), categories);
+
+        long count = 0;
+        try (InputStream inputStream = source.getInputStream(); JsonParser parser = mapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of books in " + fileName);
+            }
+            List<Book> batch = new ArrayList<>(batchSize);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                Book book = mapper.readValue(parser, Book.class);
+                book.addCategory(category);
+                batch.add(book);
+                if (batch.size() >= batchSize) {
+                    count += bookRepository.importAll(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                count += bookRepository.importAll(batch);
+            }
+        }
+        log.debug(">>>> BookCatalogLoader | {} Books Saved from {}", count, fileName);
+        return count;
+    }
+
+    private static String categoryName(String fileName) {
+        String name = fileName.endsWith(".json") ? fileName.substring(0, fileName.length() - ".json".length()) : fileName;
+        return name.contains("_") ? name.substring(0, name.lastIndexOf("_")) : name;
+    }
+}
@@ -0,0 +1,219 @@
+package com.mhg.app.chalice.service;
+
+import com.mhg.app.chalice.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.search.FTCreateParams;
+import redis.clients.jedis.search.IndexDataType;
+import redis.clients.jedis.search.schemafields.NumericField;
+import redis.clients.jedis.search.schemafields.SchemaField;
+import redis.clients.jedis.search.schemafields.TagField;
+import redis.clients.jedis.search.schemafields.TextField;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Lifecycle of the versioned books index. {@code app.booksSearchIndexName} is an alias; the
+ * physical index is {@code books-idx-v<SCHEMA_VERSION>}. A new version is created next to the live
+ * one and indexed by Redis in the background while this manager polls FT.INFO
+ * {@code percent_indexed}. Only once the scan is complete is the alias flipped and the old version
+ * dropped, so startup never waits on a reindex and searches never see a half-built index.
+ */
+@Slf4j
+@Service
+public class BookSearchIndexManager {
+
+    // bump whenever createIndex changes
+    public static final int SCHEMA_VERSION = 2;
+
+    public enum State { IDLE, BUILDING, LIVE, FAILED }
+
+    private final JedisPooled jedisPooled;
+
+    private final ExecutorService reindexExecutor;
+
+    @Value("${app.booksSearchIndexName:books-idx}")
+    private String searchIndexName;
+
+    @Value("${app.searchIndex.pollInterval:PT1S}")
+    private Duration pollInterval;
+
+    private volatile State state = State.IDLE;
+    private volatile String liveIndex;
+    private volatile String buildingIndex;
+    private volatile double percentIndexed;
+    private volatile long numDocs;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+
+    public BookSearchIndexManager(JedisPooled jedisPooled, WorkerExecutors workerExecutors) {
+        this.jedisPooled = jedisPooled;
+        this.reindexExecutor = workerExecutors.newExecutor("reindex", 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reindexExecutor.shutdownNow();
+    }
+
+    /**
+     * Makes sure the current schema version is (or will become) live. Returns immediately; when a
+     * new version has to be built the alias keeps pointing at the previous one until it is done.
+     */
+    public void ensureCurrent() {
+        String versionedName = getVersionedName(SCHEMA_VERSION);
+        Set<String> indexes = jedisPooled.ftList();
+        liveIndex = resolveAlias();
+        if (versionedName.equals(liveIndex)) {
+            log.info(">>>> BookSearchIndexManager | Books Search Index '{}' is live", versionedName);
+            state = State.LIVE;
+            dropSuperseded(indexes, versionedName);
+            return;
+        }
+
+        if (!indexes.contains(versionedName)) {
+            log.info(">>>> BookSearchIndexManager | Books Search Index '{}' does not exist. Creating it next to '{}'...", versionedName, liveIndex);
+            createIndex(versionedName);
+        }
+        buildingIndex = versionedName;
+        percentIndexed = 0;
+        startedAt = Instant.now();
+        finishedAt = null;
+        failure = null;
+        state = State.BUILDING;
+        reindexExecutor.submit(() -> awaitAndPromote(versionedName));
+    }
+
+    private void awaitAndPromote(String indexName) {
+        try {
+            while (true) {
+                Map<String, Object> info = jedisPooled.ftInfo(indexName);
+                percentIndexed = toDouble(info.get("percent_indexed"));
+                numDocs = (long) toDouble(info.get("num_docs"));
+                boolean indexing = toDouble(info.get("indexing")) != 0;
+                log.debug(">>>> BookSearchIndexManager | '{}' {}% indexed, {} docs", indexName, Math.round(percentIndexed * 100), numDocs);
+                if (percentIndexed >= 1.0 && !indexing) {
+                    break;
+                }
+                Thread.sleep(pollInterval.toMillis());
+            }
+            promote(indexName);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(indexName, e);
+        } catch (RuntimeException e) {
+            fail(indexName, e);
+        }
+    }
+
+    private void promote(String indexName) {
+        Set<String> indexes = jedisPooled.ftList();
+        if (indexes.contains(searchIndexName)) {
+            // an unversioned index from before aliasing holds the name the alias needs; documents are kept
+            log.info(">>>> BookSearchIndexManager | Dropping unversioned index '{}' so it can become an alias", searchIndexName);
+            jedisPooled.ftDropIndex(searchIndexName);
+        }
+        jedisPooled.ftAliasUpdate(searchIndexName, indexName);
+        finishedAt = Instant.now();
+        liveIndex = indexName;
+        buildingIndex = null;
+        state = State.LIVE;
+        log.info(">>>> BookSearchIndexManager | Alias '{}' -> '{}' after indexing {} docs in {} ms", searchIndexName, indexName, numDocs, //
+                Duration.between(startedAt, finishedAt).toMillis());
+        dropSuperseded(indexes, indexName);
+    }
+
+    private void fail(String indexName, Exception e) {
+        log.error(">>>> BookSearchIndexManager | Building '{}' failed, alias stays on '{}': {}", indexName, liveIndex, e.getMessage(), e);
+        failure = e.getMessage();
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    private void dropSuperseded(Set<String> indexes, String current) {
+        for (String index : indexes) {
+            if (index.startsWith(searchIndexName + "-v") && !index.equals(current)) {
+                log.info(">>>> BookSearchIndexManager | Dropping superseded index '{}'", index);
+                jedisPooled.ftDropIndex(index);
+            }
+        }
+    }
+
+    // FT.INFO on an alias reports the index it resolves to; null when nothing answers to the name yet
+    private String resolveAlias() {
+        try {
+            Object indexName = jedisPooled.ftInfo(searchIndexName).get("index_name");
+            return indexName != null ? indexName.toString() : null;
+        } catch (JedisDataException e) {
+            return null;
+        }
+    }
+
+    public void createIndex(String indexName) {
+        FTCreateParams params = FTCreateParams.createParams() //
+                .on(IndexDataType.JSON) //
+                .prefix(BookRepository.getKey(""));
+
+        List<SchemaField> fields = List.of( //
+                TextField.of("$.title").as("title").sortable(), //
+                TextField.of("$.subtitle").as("subtitle"), //
+                TextField.of("$.description").as("description"), //
+                // every author, however many: TAG for exact @authors:{...} filters, TEXT for free-text queries
+                TagField.of("$.authors[*]").as("authors"), //
+                TextField.of("$.authors[*]").as("authorNames"), //
+                // filters and sort keys, evaluated inside RediSearch instead of post-filtering in Java
+                NumericField.of("$.price").as("price").sortable(), //
+                NumericField.of("$.pageCount").as("pageCount").sortable(), //
+                TagField.of("$.language").as("language"), //
+                TagField.of("$.currency").as("currency"), //
+                TagField.of("$.categories[*].name").as("categories"));
+
+        jedisPooled.ftCreate(indexName, params, fields);
+        log.info(">>>> BookSearchIndexManager | Created Books Search Index '{}'...", indexName);
+    }
+
+    public String getVersionedName(int version) {
+        return searchIndexName + "-v" + version;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("alias", searchIndexName);
+        status.put("schemaVersion", SCHEMA_VERSION);
+        status.put("state", state);
+        status.put("liveIndex", liveIndex);
+        status.put("buildingIndex", buildingIndex);
+        status.put("percentIndexed", percentIndexed);
+        status.put("numDocs", numDocs);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        if (startedAt != null) {
+            status.put("elapsedMs", Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now()).toMillis());
+        }
+        status.put("failure", failure);
+        return status;
+    }
+
+    // FT.INFO values arrive as strings or numbers depending on protocol and module version
+    private static double toDouble(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.mhg.app.chalice.service;
+
+import com.google.gson.Gson;
+import com.mhg.app.chalice.model.AuthorSuggestion;
+import com.mhg.app.chalice.model.Book;
+import com.mhg.app.chalice.model.BookSearchHit;
+import com.mhg.app.chalice.model.BookSearchPage;
+import com.mhg.app.chalice.model.BookSearchRequest;
+import com.mhg.app.chalice.model.BookSearchResults;
+import com.mhg.app.chalice.repository.AuthorSuggestionIndex;
+import com.mhg.app.chalice.repository.BookNearCache;
+import com.mhg.app.chalice.repository.BookRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.args.SortingOrder;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.search.Document;
+import redis.clients.jedis.search.FTSearchParams;
+import redis.clients.jedis.search.FieldName;
+import redis.clients.jedis.search.SearchResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * RediSearch queries issued through the application's blocking {@link JedisPooled} pool. Callers
+ * get a {@link CompletableFuture} that completes on the dedicated search executor, so request
+ * threads never wait on Redis. The executor has {@code app.searchExecutorThreads} workers, which
+ * caps the pooled connections search can hold, in front of a queue of
+ * {@code app.searchQueueCapacity}: once that is full new searches are rejected right away with
+ * {@link RejectedExecutionException} instead of waiting behind work that will time out anyway.
+ * A search still queued when its {@code MAX_TIMEOUT} fires is dropped from the queue;
+ * one already running is bounded by the FT.SEARCH TIMEOUT and the socket timeout, since a blocked
+ * Jedis read cannot be interrupted without breaking the connection.
+ * <p>
+ * Free-text searches ({@link #search}) are answered from the {@link SearchResultCache} when possible.
+ * Structured searches ({@link #searchBooks}) build FT.SEARCH with filters, SORTBY, LIMIT, RETURN,
+ * HIGHLIGHT and SUMMARIZE through Jedis' typed {@link FTSearchParams}, run on the same executor.
+ */
+@Slf4j
+@Service
+public class BookSearchService {
+
+    public static final Integer MAX_TIMEOUT = 5;
+
+    public static final int MAX_LIMIT = 100;
+
+    // hits per free-text search, FT.SEARCH's default page
+    public static final int SEARCH_HITS = 10;
+
+    public static final int MAX_SUGGESTIONS = 20;
+
+    // projectable fields -> RETURN clause; index aliases where one exists, JSONPath otherwise
+    private static final Map<String, FieldName> RETURN_FIELDS = new LinkedHashMap<>();
+
+    static {
+        RETURN_FIELDS.put("title", FieldName.of("title"));
+        RETURN_FIELDS.put("subtitle", FieldName.of("subtitle"));
+        RETURN_FIELDS.put("description", FieldName.of("description"));
+        RETURN_FIELDS.put("authors", FieldName.of("$.authors").as("authors"));
+        RETURN_FIELDS.put("price", FieldName.of("price"));
+        RETURN_FIELDS.put("currency", FieldName.of("$.currency").as("currency"));
+        RETURN_FIELDS.put("language", FieldName.of("language"));
+        RETURN_FIELDS.put("thumbnail", FieldName.of("$.thumbnail").as("thumbnail"));
+    }
+
+    public static final List<String> LISTING_FIELDS = List.of("title", "authors", "price", "currency", "thumbnail");
+
+    private static final Set<String> TEXT_FIELDS = Set.of("title", "subtitle", "description");
+
+    private static final Set<String> SORT_FIELDS = Set.of("title", "price", "pageCount");
+
+    private static final Gson GSON = new Gson();
+
+    private final JedisPooled jedisPooled;
+
+    private final ThreadPoolExecutor searchExecutor;
+
+    private final SearchResultCache searchResultCache;
+
+    private final BookNearCache bookNearCache;
+
+    private final AuthorSuggestionIndex authorSuggestionIndex;
+
+    @Value("${app.booksSearchIndexName:books-idx}")
+    private String searchIndexName;
+
+    @Value("${app.autoCompleteKey:author-autocomplete}")
+    private String autoCompleteKey;
+
+    public BookSearchService(JedisPooled jedisPooled, //
+                             WorkerExecutors workerExecutors, //
+                             SearchResultCache searchResultCache, //
+                             BookNearCache bookNearCache, //
+                             AuthorSuggestionIndex authorSuggestionIndex, //
+                             @Value("${app.searchExecutorThreads:4}") int searchExecutorThreads, //
+                             @Value("${app.searchQueueCapacity:100}") int searchQueueCapacity) {
+        this.jedisPooled = jedisPooled;
+        this.searchResultCache = searchResultCache;
+        this.bookNearCache = bookNearCache;
+        this.authorSuggestionIndex = authorSuggestionIndex;
+        this.searchExecutor = workerExecutors.newBoundedExecutor("search", searchExecutorThreads, searchQueueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searchExecutor.shutdown();
+    }
+
+    // free-text search through the tiered result cache; only ISBNs and scores are cached, books come from the near cache
+    public CompletableFuture<BookSearchResults> search(String query) {
+        return submit(() -> {
+                    SearchResultCache.Entry entry = searchResultCache.get(query, this::searchIsbns);
+                    if (entry == null) {
+                        return BookSearchResults.builder().total(0).books(List.of()).build();
+                    }
+                    Map<String, Book> books = bookNearCache.findAllById(entry.isbns());
+                    List<BookSearchResults.ScoredBook> hits = new ArrayList<>(entry.isbns().size());
+                    for (int i = 0; i < entry.isbns().size(); i++) {
+                        Book book = books.get(entry.isbns().get(i));
+                        if (book != null) {
+                            hits.add(BookSearchResults.ScoredBook.builder().score(entry.scores().get(i)).book(book).build());
+                        }
+                    }
+                    log.debug("Search for query '{}' returned {} of {} results", query, hits.size(), entry.total());
+                    return BookSearchResults.builder().total(entry.total()).books(hits).build();
+                });
+    }
+
+    // NOCONTENT WITHSCORES: the result is just ids and scores, which is all the cache keeps
+    private SearchResultCache.Entry searchIsbns(String query) {
+        log.debug("Executing search for index {} with query '{}'", searchIndexName, query);
+        FTSearchParams params = FTSearchParams.searchParams() //
+                .noContent() //
+                .withScores() //
+                .limit(0, SEARCH_HITS) //
+                .timeout(TimeUnit.SECONDS.toMillis(MAX_TIMEOUT)) //
+                .dialect(2);
+        SearchResult result;
+        try {
+            result = jedisPooled.ftSearch(searchIndexName, query, params);
+        } catch (JedisDataException e) {
+            if (e.getMessage() != null && e.getMessage().toLowerCase().contains("unknown index name")) {
+                log.error("Search failed: Redis Search Index '{}' does not exist. Please ensure it is created and data is indexed.", searchIndexName);
+                return null;
+            }
+            log.error("Redis command execution error during search on index '{}' for query '{}': {}", searchIndexName, query, e.getMessage(), e);
+            throw new RuntimeException("Redis search command failed unexpectedly", e);
+        }
+        List<String> isbns = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        for (Document document : result.getDocuments()) {
+            isbns.add(toIsbn(document.getId()));
+            scores.add(document.getScore());
+        }
+        return new SearchResultCache.Entry(result.getTotalResults(), isbns, scores);
+    }
+
+    public CompletableFuture<List<AuthorSuggestion>> suggestAuthors(String query) {
+        return submit(() -> {
+                    List<AuthorSuggestion> suggestions = authorSuggestionIndex.suggest(query, MAX_SUGGESTIONS);
+                    log.debug(">>>> Autocomplete for query '{}' on key '{}' returned {} results.", query, autoCompleteKey, suggestions.size());
+                    return suggestions;
+                });
+    }
+
+    public CompletableFuture<BookSearchPage> searchBooks(BookSearchRequest request) {
+        // validated on the caller's thread so bad input surfaces as IllegalArgumentException
+        String query = buildQuery(request);
+        FTSearchParams params = buildParams(request);
+        log.debug("Executing structured search for index {} with query '{}'", searchIndexName, query);
+
+        return submit(() -> {
+                    SearchResult result;
+                    try {
+                        result = jedisPooled.ftSearch(searchIndexName, query, params);
+                    } catch (JedisDataException e) {
+                        if (e.getMessage() != null && e.getMessage().toLowerCase().contains("unknown index name")) {
+                            log.error("Search failed: Redis Search Index '{}' does not exist. Please ensure it is created and data is indexed.", searchIndexName);
+                            return BookSearchPage.builder().total(0).offset(request.getOffset()).limit(request.getLimit()).books(List.of()).build();
+                        }
+                        log.error("Redis command execution error during search on index '{}' for query '{}': {}", searchIndexName, query, e.getMessage(), e);
+                        throw new RuntimeException("Redis search command failed unexpectedly", e);
+                    }
+                    List<BookSearchHit> hits = result.getDocuments().stream().map(BookSearchService::toHit).toList();
+                    log.debug(">>>> Structured search for query '{}' on index '{}' returned {} of {} results", query, searchIndexName, hits.size(), result.getTotalResults());
+                    return BookSearchPage.builder() //
+                            .total(result.getTotalResults()) //
+                            .offset(request.getOffset()) //
+                            .limit(request.getLimit()) //
+                            .books(hits) //
+                            .build();
+                });
+    }
+
+    // throws RejectedExecutionException when the queue is full; a timeout cancels the task if it has not started yet
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = searchExecutor.submit(() -> {
+            try {
+                result.complete(work.get());
+            } catch (Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+        });
+        result.orTimeout(MAX_TIMEOUT, TimeUnit.SECONDS).whenComplete((value, throwable) -> {
+            if (throwable instanceof TimeoutException && task.cancel(false)) {
+                searchExecutor.remove((Runnable) task);
+            }
+        });
+        return result;
+    }
+
+    static String buildQuery(BookSearchRequest request) {
+        List<String> clauses = new ArrayList<>();
+        if (request.getQuery() != null && !request.getQuery().isBlank() && !"*".equals(request.getQuery().trim())) {
+            clauses.add("(" + request.getQuery().trim() + ")");
+        }
+        if (request.getCategory() != null) {
+            clauses.add("@categories:{" + escapeTag(request.getCategory()) + "}");
+        }
+        if (request.getAuthor() != null) {
+            clauses.add("@authors:{" + escapeTag(request.getAuthor()) + "}");
+        }
+        if (request.getLanguage() != null) {
+            clauses.add("@language:{" + escapeTag(request.getLanguage()) + "}");
+        }
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            String min = request.getMinPrice() != null ? request.getMinPrice().toString() : "-inf";
+            String max = request.getMaxPrice() != null ? request.getMaxPrice().toString() : "+inf";
+            clauses.add("@price:[" + min + " " + max + "]");
+        }
+        return clauses.isEmpty() ? "*" : String.join(" ", clauses);
+    }
+
+    static FTSearchParams buildParams(BookSearchRequest request) {
+        if (request.getOffset() < 0 || request.getLimit() < 0 || request.getLimit() > MAX_LIMIT) {
+            throw new IllegalArgumentException("offset must be >= 0 and limit between 0 and " + MAX_LIMIT);
+        }
+        Set<String> fields = new LinkedHashSet<>(request.getFields() != null ? request.getFields() : LISTING_FIELDS);
+        if (request.isSummarize()) {
+            fields.add("description");
+        }
+        for (String field : fields) {
+            if (!RETURN_FIELDS.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field '" + field + "', expected one of " + RETURN_FIELDS.keySet());
+            }
+        }
+
+        FTSearchParams params = FTSearchParams.searchParams() //
+                .returnFields(fields.stream().map(RETURN_FIELDS::get).toList()) //
+                .limit(request.getOffset(), request.getLimit()) //
+                .timeout(TimeUnit.SECONDS.toMillis(MAX_TIMEOUT)) //
+                .dialect(2);
+        if (request.getSortBy() != null) {
+            if (!SORT_FIELDS.contains(request.getSortBy())) {
+                throw new IllegalArgumentException("Cannot sort by '" + request.getSortBy() + "', expected one of " + SORT_FIELDS);
+            }
+            params.sortBy(request.getSortBy(), request.isDescending() ? SortingOrder.DESC : SortingOrder.ASC);
+        }
+        List<String> textFields = fields.stream().filter(TEXT_FIELDS::contains).toList();
+        if (request.isHighlight() && !textFields.isEmpty()) {
+            params.highlight(FTSearchParams.highlightParams().fields(textFields).tags("<b>", "</b>"));
+        }
+        if (request.isSummarize()) {
+            params.summarize(FTSearchParams.summarizeParams().fields("description").fragsNum(2).fragSize(20).separator("... "));
+        }
+        return params;
+    }
+
+    private static BookSearchHit toHit(Document document) {
+        return BookSearchHit.builder() //
+                .id(toIsbn(document.getId())) //
+                .title(property(document, "title")) //
+                .subtitle(property(document, "subtitle")) //
+                .description(property(document, "description")) //
+                .authors(toList(property(document, "authors"))) //
+                .price(document.hasProperty("price") ? Double.valueOf(property(document, "price")) : null) //
+                .currency(property(document, "currency")) //
+                .language(property(document, "language")) //
+                .thumbnail(property(document, "thumbnail")) //
+                .build();
+    }
+
+    private static String toIsbn(String id) {
+        return id.startsWith(BookRepository.getKey("")) ? id.substring(BookRepository.getKey("").length()) : id;
+    }
+
+    // fields missing from a document (or not projected) stay null instead of "null"
+    private static String property(Document document, String name) {
+        return document.hasProperty(name) ? document.getString(name) : null;
+    }
+
+    // RETURN of $.authors gives the array serialized as JSON
+    private static List<String> toList(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.startsWith("[")) {
+            return Arrays.asList(GSON.fromJson(value, String[].class));
+        }
+        return List.of(value);
+    }
+
+    // TAG values match verbatim, so separators and punctuation have to be escaped
+    private static String escapeTag(String value) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : value.trim().toCharArray()) {
+            if (!Character.isLetterOrDigit(c) && c != '_') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,194 @@
+package com.mhg.app.chalice.service;
+
+import com.mhg.app.chalice.model.Book;
+import com.mhg.app.chalice.model.Cart;
+import com.mhg.app.chalice.model.CartGenerationReport;
+import com.mhg.app.chalice.model.CartItem;
+import com.mhg.app.chalice.model.User;
+import com.mhg.app.chalice.repository.BookNearCache;
+import com.mhg.app.chalice.repository.BookRepository;
+import com.mhg.app.chalice.repository.CartRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Synthetic cart data for seeding and perf environments. Per batch of {@code app.cartBatchSize}
+ * carts, users and ISBNs are drawn with one {@code SRANDMEMBER key -count} each, the books are
+ * resolved in one near-cache/JSON.MGET lookup, the carts are built in memory and written as one
+ * pipeline. Checkouts of the batch then run concurrently on the checkout executor. Besides the
+ * startup seeder, runs are started through the {@code cartgenerator} actuator endpoint, one at a
+ * time in the background and capped at {@code app.cartGenerator.maxCount} carts.
+ */
+@Slf4j
+@Service
+public class CartGenerator {
+
+    private final JedisPooled jedisPooled;
+
+    private final CartRepository cartRepository;
+
+    private final BookNearCache bookNearCache;
+
+    private final CartService cartService;
+
+    private final ExecutorService checkoutExecutor;
+
+    private final ExecutorService generatorExecutor;
+
+    private final AtomicReference<CompletableFuture<CartGenerationReport>> job = new AtomicReference<>();
+
+    @Value("${app.cartGenerator.maxCount:100000}")
+    private long maxCount;
+
+    @Value("${app.cartBatchSize:500}")
+    private int batchSize;
+
+    @Value("${app.cartMaxBooks:7}")
+    private int maxBooks;
+
+    public CartGenerator(JedisPooled jedisPooled, CartRepository cartRepository, BookNearCache bookNearCache, //
+                         CartService cartService, WorkerExecutors workerExecutors, //
+                         @Value("${app.cartCheckoutConcurrency:8}") int checkoutConcurrency) {
+        this.jedisPooled = jedisPooled;
+        this.cartRepository = cartRepository;
+        this.bookNearCache = bookNearCache;
+        this.cartService = cartService;
+        this.checkoutExecutor = workerExecutors.newExecutor("checkout", checkoutConcurrency);
+        this.generatorExecutor = workerExecutors.newExecutor("cart-generator", 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        generatorExecutor.shutdownNow();
+        checkoutExecutor.shutdown();
+    }
+
+    // on-demand runs: validated, one at a time, in the background so no request thread waits on them
+    public synchronized CompletableFuture<CartGenerationReport> submit(long numberOfCarts, double checkoutRatio) {
+        if (numberOfCarts < 1 || numberOfCarts > maxCount) {
+            throw new IllegalArgumentException("count must be between 1 and " + maxCount);
+        }
+        if (checkoutRatio < 0 || checkoutRatio > 1) {
+            throw new IllegalArgumentException("checkoutRatio must be between 0 and 1");
+        }
+        CompletableFuture<CartGenerationReport> running = job.get();
+        if (running != null && !running.isDone()) {
+            throw new IllegalStateException("A cart generation run is already in progress");
+        }
+        CompletableFuture<CartGenerationReport> next = CompletableFuture.supplyAsync(() -> generate(numberOfCarts, checkoutRatio), generatorExecutor);
+        next.exceptionally(throwable -> {
+            log.error(">>>> CartGenerator | Cart generation failed: {}", throwable.getMessage(), throwable);
+            return null;
+        });
+        job.set(next);
+        return next;
+    }
+
+    // state of the last on-demand run
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("maxCount", maxCount);
+        CompletableFuture<CartGenerationReport> last = job.get();
+        if (last == null) {
+            status.put("state", "IDLE");
+        } else if (!last.isDone()) {
+            status.put("state", "RUNNING");
+        } else if (last.isCompletedExceptionally()) {
+            status.put("state", "FAILED");
+            status.put("failure", last.exceptionNow().getMessage());
+        } else {
+            status.put("state", "DONE");
+            status.put("report", last.resultNow());
+        }
+        return status;
+    }
+
+    // checkoutRatio: share of generated carts that are checked out right away (0..1)
+    public CartGenerationReport generate(long numberOfCarts, double checkoutRatio) {
+        long startTime = System.currentTimeMillis(); // Millisecond precision
+        long carts = 0;
+        AtomicLong checkouts = new AtomicLong();
+        AtomicLong failedCheckouts = new AtomicLong();
+
+        while (carts < numberOfCarts) {
+            int count = (int) Math.min(batchSize, numberOfCarts - carts);
+            List<Cart> batch = buildCarts(count);
+            if (batch.isEmpty()) {
+                log.info(">>>> CartGenerator | No users or books to build carts from");
+                break;
+            }
+            cartRepository.importAll(batch);
+            carts += batch.size();
+
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (Cart cart : batch) {
+                if (ThreadLocalRandom.current().nextDouble() < checkoutRatio) {
+                    pending.add(CompletableFuture.runAsync(() -> cartService.checkout(cart.getId()), checkoutExecutor) //
+                            .handle((result, throwable) -> {
+                                (throwable == null ? checkouts : failedCheckouts).incrementAndGet();
+                                return null;
+                            }));
+                }
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        }
+
+        long millis = Math.max(1, System.currentTimeMillis() - startTime);
+        CartGenerationReport report = CartGenerationReport.builder() //
+                .carts(carts) //
+                .checkouts(checkouts.get()) //
+                .failedCheckouts(failedCheckouts.get()) //
+                .millis(millis) //
+                .cartsPerSecond(carts * 1000.0 / millis) //
+                .build();
+        log.info(">>>> CartGenerator | Created {} carts ({} checked out) in {} ms", carts, checkouts.get(), millis);
+        return report;
+    }
+
+    private List<Cart> buildCarts(int count) {
+        // SRANDMEMBER with a negative count: repeats allowed, one round trip for the whole batch
+        List<String> userIds = jedisPooled.srandmember(User.class.getSimpleName(), -count);
+        List<String> isbns = jedisPooled.srandmember(BookRepository.ID_SET, -count * maxBooks);
+        if (userIds == null || isbns == null || userIds.isEmpty() || isbns.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Book> books = bookNearCache.findAllById(new HashSet<>(isbns));
+
+        List<Cart> carts = new ArrayList<>(count);
+        int next = 0;
+        for (String userId : userIds) {
+            int howMany = ThreadLocalRandom.current().nextInt(maxBooks) + 1;
+            Map<String, CartItem> items = new LinkedHashMap<>();
+            for (int n = 0; n < howMany; n++, next++) {
+                Book book = books.get(isbns.get(next % isbns.size()));
+                if (book != null) {
+                    items.putIfAbsent(book.getId(), CartItem.builder() //
+                            .isbn(book.getId()) //
+                            .price(book.getPrice()) //
+                            .quantity(1L) //
+                            .build());
+                }
+            }
+            carts.add(Cart.builder() //
+                    .userId(userId) //
+                    .cartItems(Set.copyOf(items.values())) //
+                    .build());
+        }
+        return carts;
+    }
+}
@@ -1,23 +1,28 @@
 package com.mhg.app.chalice.service;
 
+import com.google.gson.Gson;
 import com.mhg.app.chalice.model.Book;
 import com.mhg.app.chalice.model.Cart;
 import com.mhg.app.chalice.model.CartItem;
+import com.mhg.app.chalice.model.CartSummary;
+import com.mhg.app.chalice.model.CartUpdate;
 import com.mhg.app.chalice.model.User;
-import com.mhg.app.chalice.repository.BookRepository;
+import com.mhg.app.chalice.repository.BookNearCache;
 import com.mhg.app.chalice.repository.CartRepository;
-import com.mhg.app.chalice.repository.UserRepository;
+import com.mhg.app.chalice.repository.LuaScript;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisHash;
 import org.springframework.stereotype.Service;
 import redis.clients.jedis.JedisPooled;
-import redis.clients.jedis.json.Path2;
 
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.OptionalInt;
-import java.util.stream.IntStream;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -27,17 +32,20 @@ public class CartService {
     private CartRepository cartRepository;
 
     @Autowired
-    private BookRepository bookRepository;
-
-    @Autowired
-    private UserRepository userRepository;
+    private BookNearCache bookNearCache;
 
     private final JedisPooled jedisPooled;
 
-    Path2 cartItemsPath = Path2.of(".cartItems");
+    private static final Gson GSON = new Gson();
+    private static final LuaScript ADD_TO_CART_SCRIPT = LuaScript.fromClasspath("scripts/add-to-cart.lua");
+    private static final LuaScript CHECKOUT_SCRIPT = LuaScript.fromClasspath("scripts/checkout.lua");
+    private static final LuaScript REMOVE_FROM_CART_SCRIPT = LuaScript.fromClasspath("scripts/remove-from-cart.lua");
+
+    private final MeterRegistry meterRegistry;
 
-    public CartService(JedisPooled jedisPooled) {
+    public CartService(JedisPooled jedisPooled, MeterRegistry meterRegistry) {
         this.jedisPooled = jedisPooled;
+        this.meterRegistry = meterRegistry;
     }
 
     public Cart get(String id) {
@@ -45,39 +53,93 @@ public class CartService {
         return optionalCart.orElse(null);
     }
 
-    public void addToCart(String id, CartItem item) {
-        Optional<Book> book = Optional.ofNullable(bookRepository.findById(item.getIsbn()));
-        if (book.isPresent()) {
-            String cartKey = CartRepository.getKey(id);
-            item.setPrice(book.get().getPrice());
-            jedisPooled.jsonArrAppend(cartKey, cartItemsPath, item);
+    public Optional<CartSummary> getSummary(String id) {
+        return cartRepository.findSummaryById(id);
+    }
+
+    // Upserts server-side: an ISBN already in the cart gets its quantity bumped with JSON.NUMINCRBY,
+    // otherwise the item is appended. Returns the stored item and the new cart total.
+    public Optional<CartUpdate> addToCart(String id, CartItem item) {
+        Optional<Book> book = Optional.ofNullable(bookNearCache.findById(item.getIsbn()));
+        if (book.isEmpty()) {
+            log.error("Unable to find book with isbn {}", item.getIsbn());
+            return Optional.empty();
+        }
+        long quantity = item.getQuantity() != null ? item.getQuantity() : 1L;
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity must be at least 1");
+        }
+        // a book without a price is added at 0 rather than failing inside the script
+        double price = book.get().getPrice() != null ? book.get().getPrice() : 0.0;
+        String cartKey = CartRepository.getKey(id);
+        Object result = ADD_TO_CART_SCRIPT.execute(jedisPooled, List.of(cartKey), //
+                List.of(item.getIsbn(), String.valueOf(price), String.valueOf(quantity)));
+        if (result == null) {
+            log.error("Unable to find cart {}", id);
+        }
+        return toCartUpdate(result);
+    }
+
+    // Finds and pops the item server-side in one round trip, so a concurrent append can't shift
+    // the index between lookup and removal. Returns the removed item and the remaining total.
+    public Optional<CartUpdate> removeFromCart(String id, String isbn) {
+        String cartKey = CartRepository.getKey(id);
+        Object result = REMOVE_FROM_CART_SCRIPT.execute(jedisPooled, List.of(cartKey), List.of(isbn));
+        if (result == null) {
+            log.error("Unable to find isbn {} in cart {}", isbn, id);
         }
+        return toCartUpdate(result);
     }
 
-    public void removeFromCart(String id, String isbn) {
-        Optional<Cart> cartFinder = cartRepository.findById(id);
-        if (cartFinder.isPresent()) {
-            Cart cart = cartFinder.get();
-            String cartKey = CartRepository.getKey(cart.getId());
-            List<CartItem> cartItems = new ArrayList<CartItem>(cart.getCartItems());
-            OptionalInt cartItemIndex = IntStream.range(0, cartItems.size()) //
-                    .filter(i -> cartItems.get(i).getIsbn().equals(isbn))
-                    .findFirst();
-            if (cartItemIndex.isPresent()) {
-                jedisPooled.jsonArrPop(cartKey, cartItemsPath, cartItemIndex.getAsInt());
-            } else {
-                log.error("Unable to find isbn {} in cache", isbn);
-            }
+    // cart scripts reply with { item JSON, total }
+    private Optional<CartUpdate> toCartUpdate(Object result) {
+        if (!(result instanceof List<?> reply) || reply.size() < 2) {
+            return Optional.empty();
         }
+        CartItem item = GSON.fromJson(reply.get(0).toString(), CartItem.class);
+        Double total = Double.valueOf(reply.get(1).toString());
+        return Optional.of(CartUpdate.builder().item(item).total(total).build());
+    }
+
+    // Resolves every ISBN in one batched lookup, then appends only the new book references to the
+    // user hash and empties the cart in a single server-side script. Returns per-phase latency in µs,
+    // which is also recorded in the cart.checkout timer (tag phase).
+    public Map<String, Long> checkout(String id) {
+        long startTime = System.nanoTime();
+        Cart cart = cartRepository.findById(id).orElseThrow(() -> new NoSuchElementException("Cart " + id + " not found"));
+        long cartLoaded = System.nanoTime();
+
+        List<String> isbns = cart.getCartItems().stream().map(CartItem::getIsbn).distinct().toList();
+        Map<String, Book> books = bookNearCache.findAllById(isbns);
+        List<String> ownedIsbns = isbns.stream().filter(books::containsKey).toList();
+        long booksResolved = System.nanoTime();
+
+        String userKey = getKey(User.class, cart.getUserId());
+        Object added = CHECKOUT_SCRIPT.execute(jedisPooled, List.of(userKey, CartRepository.getKey(id)), ownedIsbns);
+        if (added instanceof Long count && count < 0) {
+            throw new NoSuchElementException("User " + cart.getUserId() + " not found");
+        }
+        long committed = System.nanoTime();
+
+        Map<String, Long> timings = new LinkedHashMap<>();
+        timings.put("loadCart", TimeUnit.NANOSECONDS.toMicros(cartLoaded - startTime));
+        timings.put("resolveBooks", TimeUnit.NANOSECONDS.toMicros(booksResolved - cartLoaded));
+        timings.put("commit", TimeUnit.NANOSECONDS.toMicros(committed - booksResolved));
+        timings.put("total", TimeUnit.NANOSECONDS.toMicros(committed - startTime));
+        recordPhase("loadCart", cartLoaded - startTime);
+        recordPhase("resolveBooks", booksResolved - cartLoaded);
+        recordPhase("commit", committed - booksResolved);
+        recordPhase("total", committed - startTime);
+        log.debug("Checkout of cart {} added {} book(s), phases (µs): {}", id, added, timings);
+        return timings;
+    }
+
+    private void recordPhase(String phase, long nanos) {
+        meterRegistry.timer("cart.checkout", "phase", phase).record(nanos, TimeUnit.NANOSECONDS);
     }
 
-    public void checkout(String id) {
-        Cart cart = cartRepository.findById(id).get();
-        User user = userRepository.findById(cart.getUserId()).get();
-        cart.getCartItems().forEach(cartItem -> {
-            Book book = bookRepository.findById(cartItem.getIsbn());
-            user.addBook(book);
-        });
-        userRepository.save(user);
+    // Spring Data keys hashes as "<keyspace>:<id>", the keyspace coming from @RedisHash
+    private static String getKey(Class<?> entity, String id) {
+        return String.format("%s:%s", entity.getAnnotation(RedisHash.class).value(), id);
     }
 }
@@ -0,0 +1,222 @@
+package com.mhg.app.chalice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mhg.app.chalice.repository.CatalogVersion;
+import com.mhg.app.chalice.serialization.CompactRedisSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Two-tier cache of free-text search results. An entry is only the result's ISBNs and scores
+ * (books are resolved through the near cache), held in a bounded in-process Caffeine tier in front
+ * of a Redis tier shared by every node ({@code search-cache:v<version>:<query>}, TTL), whose values
+ * are written by {@link CompactRedisSerializer} in {@code app.redisValues.format}.
+ * <p>
+ * Keys are the normalized query plus the {@link CatalogVersion}: any book write bumps the version,
+ * so entries computed against an older catalog are never read again and simply expire. Hits and
+ * misses are counted per query shape (number of terms, prefix, fielded, phrase, ...).
+ */
+@Slf4j
+@Service
+public class SearchResultCache {
+
+    public static final String KEY_PREFIX = "search-cache:v";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // bare words, optionally prefix (foo*): matched as an intersection, so order and case don't change the result
+    private static final Pattern PLAIN_TERM = Pattern.compile("[\\p{L}\\p{N}_']+\\*?");
+
+    // compact cached form of one result page; Serializable so every ValueFormat, JDK included, can write it
+    public record Entry(long total, List<String> isbns, List<Double> scores) implements Serializable {
+    }
+
+    private enum Tier { LOCAL, REDIS, MISS }
+
+    private final JedisPooled jedisPooled;
+
+    private final CatalogVersion catalogVersion;
+
+    private final CompactRedisSerializer serializer;
+
+    private final AsyncCache<String, Entry> local;
+
+    private final Duration ttl;
+
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+    public SearchResultCache(JedisPooled jedisPooled, CatalogVersion catalogVersion, CompactRedisSerializer redisValueSerializer, //
+                             @Value("${app.searchCache.maxSize:2000}") long maxSize, //
+                             @Value("${app.searchCache.localTtl:PT1M}") Duration localTtl, //
+                             @Value("${app.searchCache.ttl:PT3M}") Duration ttl) {
+        this.jedisPooled = jedisPooled;
+        this.catalogVersion = catalogVersion;
+        this.serializer = redisValueSerializer;
+        this.ttl = ttl;
+        this.local = Caffeine.newBuilder() //
+                .maximumSize(maxSize) //
+                .expireAfterWrite(localTtl) //
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached result for {@code query}, running {@code search} with the normalized query
+     * on a miss in both tiers. Concurrent misses for the same key share one search. A null result
+     * (e.g. the index does not exist yet) is passed through and not cached.
+     * <p>
+     * The local tier only ever holds a future: the first caller for a key installs it with an atomic
+     * putIfAbsent and does the Redis GET, search and SETEX outside any cache compute, while later
+     * callers for that key wait on the future and callers for other keys are not held up at all.
+     */
+    public Entry get(String query, Function<String, Entry> search) {
+        String normalized = normalize(query);
+        String key = KEY_PREFIX + catalogVersion.current() + ":" + normalized;
+        CompletableFuture<Entry> pending = new CompletableFuture<>();
+        CompletableFuture<Entry> cached = local.asMap().putIfAbsent(key, pending);
+        Tier tier;
+        Entry entry;
+        if (cached != null) {
+            tier = Tier.LOCAL;
+            entry = await(cached);
+        } else {
+            try {
+                byte[] redisKey = key.getBytes(StandardCharsets.UTF_8);
+                entry = read(jedisPooled.get(redisKey));
+                if (entry != null) {
+                    tier = Tier.REDIS;
+                } else {
+                    tier = Tier.MISS;
+                    entry = search.apply(normalized);
+                    if (entry != null) {
+                        jedisPooled.setex(redisKey, ttl.toSeconds(), serializer.serialize(entry));
+                    }
+                }
+            } catch (Throwable throwable) {
+                // Errors included, or waiters would hang on a future nobody completes; the entry is
+                // removed right away so the next caller retries
+                local.asMap().remove(key, pending);
+                pending.completeExceptionally(throwable);
+                throw throwable;
+            }
+            // a null value is dropped by the cache as well
+            pending.complete(entry);
+        }
+        shapes.computeIfAbsent(shapeOf(normalized), shape -> new ShapeStats()).record(tier);
+        log.debug("Search cache {} for '{}' ({})", tier, normalized, key);
+        return entry;
+    }
+
+    // a value this build cannot read (e.g. written before the header existed) counts as a miss and is overwritten
+    private Entry read(byte[] bytes) {
+        try {
+            return serializer.deserialize(bytes) instanceof Entry entry ? entry : null;
+        } catch (SerializationException e) {
+            log.debug("Unreadable search cache value: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Canonical form of a query: trimmed, whitespace collapsed and, for plain term lists, lower-cased
+     * and sorted. Anything with query syntax keeps its case and order, since tag values are case
+     * sensitive and operators bind to their position.
+     */
+    public static String normalize(String query) {
+        String collapsed = query == null ? "" : WHITESPACE.matcher(query.trim()).replaceAll(" ");
+        if (collapsed.isEmpty()) {
+            return "*";
+        }
+        String[] terms = collapsed.split(" ");
+        if (!Arrays.stream(terms).allMatch(term -> PLAIN_TERM.matcher(term).matches())) {
+            return collapsed;
+        }
+        return Arrays.stream(terms).map(term -> term.toLowerCase(Locale.ROOT)).sorted().collect(Collectors.joining(" "));
+    }
+
+    static String shapeOf(String normalized) {
+        if ("*".equals(normalized)) {
+            return "all";
+        }
+        if (normalized.contains("@")) {
+            return "fielded";
+        }
+        if (normalized.contains("\"")) {
+            return "phrase";
+        }
+        String[] terms = normalized.split(" ");
+        if (!Arrays.stream(terms).allMatch(term -> PLAIN_TERM.matcher(term).matches())) {
+            return "complex";
+        }
+        String size = terms.length >= 3 ? "terms:3+" : "terms:" + terms.length;
+        return normalized.contains("*") ? size + ":prefix" : size;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> byShape = new LinkedHashMap<>();
+        shapes.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(shape -> byShape.put(shape.getKey(), shape.getValue().toMap()));
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("catalogVersion", catalogVersion.current());
+        response.put("localSize", local.synchronous().estimatedSize());
+        response.put("shapes", byShape);
+        return response;
+    }
+
+    private static class ShapeStats {
+        private final LongAdder localHits = new LongAdder();
+        private final LongAdder redisHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        void record(Tier tier) {
+            switch (tier) {
+                case LOCAL -> localHits.increment();
+                case REDIS -> redisHits.increment();
+                case MISS -> misses.increment();
+            }
+        }
+
+        Map<String, Object> toMap() {
+            long local = localHits.sum();
+            long redis = redisHits.sum();
+            long total = local + redis + misses.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("requests", total);
+            map.put("localHits", local);
+            map.put("redisHits", redis);
+            map.put("misses", total - local - redis);
+            map.put("localHitRate", total > 0 ? (double) local / total : 0);
+            map.put("hitRate", total > 0 ? (double) (local + redis) / total : 0);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.mhg.app.chalice.service;
+
+import com.mhg.app.chalice.model.Role;
+import com.mhg.app.chalice.model.User;
+import com.mhg.app.chalice.model.UserImportReport;
+import com.mhg.app.chalice.repository.RoleRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.convert.IndexedData;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.convert.SimpleIndexedPropertyValue;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Bulk user import. BCrypt is deliberately slow, so passwords are hashed concurrently on a worker
+ * pool sized to the machine's cores; the hashed users are then written in pipelined batches of
+ * {@code app.userBatchSize}. Each user goes through Spring Data's own {@link RedisConverter}, so
+ * the hash, the {@code User} id set and the {@code @Indexed} email index come out exactly as
+ * {@code userRepository.save} would write them, only without a round trip per command.
+ * <p>
+ * Ids are always generated here, so an import can only add users, never overwrite one. Besides
+ * the startup seeder, imports come in through the {@code userimport} actuator endpoint, limited to
+ * the roles in {@code app.userImport.roles} and to {@code app.userImport.maxCount} users.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    private final JedisPooled jedisPooled;
+
+    private final RedisConverter redisConverter;
+
+    private final BCryptPasswordEncoder passwordEncoder;
+
+    private final RoleRepository roleRepository;
+
+    private final ExecutorService hashExecutor;
+
+    @Value("${app.userBatchSize:500}")
+    private int batchSize;
+
+    @Value("${app.userImport.maxCount:1000}")
+    private int maxCount;
+
+    @Value("${app.userImport.roles:customer}")
+    private Set<String> importRoles;
+
+    public UserImportService(JedisPooled jedisPooled, RedisConverter redisConverter, BCryptPasswordEncoder passwordEncoder, //
+                             RoleRepository roleRepository, WorkerExecutors workerExecutors) {
+        this.jedisPooled = jedisPooled;
+        this.redisConverter = redisConverter;
+        this.passwordEncoder = passwordEncoder;
+        this.roleRepository = roleRepository;
+        this.hashExecutor = workerExecutors.newExecutor("bcrypt", Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdown();
+    }
+
+    // on-demand imports: capped, and only into the roles listed in app.userImport.roles
+    public UserImportReport importUsers(List<User> users, String roleName) {
+        if (users == null || users.isEmpty() || users.size() > maxCount) {
+            throw new IllegalArgumentException("users must hold between 1 and " + maxCount + " entries");
+        }
+        if (!importRoles.contains(roleName)) {
+            throw new IllegalArgumentException("role must be one of " + importRoles);
+        }
+        Role role = roleRepository.findFirstByName(roleName);
+        if (role == null) {
+            throw new IllegalArgumentException("Unknown role: " + roleName);
+        }
+        return importUsers(users, role);
+    }
+
+    // users carry plain-text passwords; new users get the role and are skipped when their email is taken
+    public UserImportReport importUsers(List<User> users, Role role) {
+        List<String> skipped = new ArrayList<>();
+        Map<String, User> byEmail = new LinkedHashMap<>();
+        for (User user : users) {
+            if (user == null || user.getEmail() == null || user.getPassword() == null) {
+                skipped.add(user != null && user.getEmail() != null ? user.getEmail() : "<invalid>");
+            } else if (byEmail.putIfAbsent(user.getEmail(), user) != null) {
+                skipped.add(user.getEmail());
+            }
+        }
+        skipped.addAll(removeExisting(byEmail));
+        List<User> accepted = new ArrayList<>(byEmail.values());
+
+        long startTime = System.currentTimeMillis(); // Millisecond precision
+        CompletableFuture.allOf(accepted.stream() //
+                .map(user -> CompletableFuture.runAsync(() -> user.setPassword(passwordEncoder.encode(user.getPassword())), hashExecutor)) //
+                .toArray(CompletableFuture[]::new)).join();
+        long hashMillis = System.currentTimeMillis() - startTime;
+
+        startTime = System.currentTimeMillis();
+        for (int from = 0; from < accepted.size(); from += batchSize) {
+            writeBatch(accepted.subList(from, Math.min(from + batchSize, accepted.size())), role);
+        }
+        long writeMillis = System.currentTimeMillis() - startTime;
+
+        log.info(">>>> UserImportService | Imported {} of {} users (hashing {} ms, writing {} ms)", accepted.size(), users.size(), hashMillis, writeMillis);
+        return UserImportReport.builder() //
+                .received(users.size()) //
+                .imported(accepted.size()) //
+                .skipped(skipped) //
+                .hashMillis(hashMillis) //
+                .writeMillis(writeMillis) //
+                .build();
+    }
+
+    // one pipelined EXISTS per email against the User:email:<email> index sets
+    private List<String> removeExisting(Map<String, User> byEmail) {
+        Map<String, Response<Boolean>> exists = new LinkedHashMap<>();
+        try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+            byEmail.keySet().forEach(email -> exists.put(email, pipeline.exists("User:email:" + email)));
+            pipeline.sync();
+        }
+        List<String> existing = new ArrayList<>();
+        exists.forEach((email, response) -> {
+            if (response.get()) {
+                existing.add(email);
+                byEmail.remove(email);
+            }
+        });
+        return existing;
+    }
+
+    // mirrors RedisKeyValueAdapter.put for a new entity: HSET the bucket, SADD the keyspace set and the index sets.
+    // The id is always a fresh UUID, whatever the import carried, so the entity really is new
+    private void writeBatch(List<User> batch, Role role) {
+        try (AbstractPipeline pipeline = jedisPooled.pipelined()) {
+            for (User user : batch) {
+                user.setId(UUID.randomUUID().toString());
+                if (role != null) {
+                    user.addRole(role);
+                }
+                RedisData data = new RedisData();
+                redisConverter.write(user, data);
+                String key = data.getKeyspace() + ":" + data.getId();
+
+                pipeline.hset(bytes(key), data.getBucket().rawMap());
+                pipeline.sadd(data.getKeyspace(), data.getId());
+                Set<String> indexKeys = new HashSet<>();
+                for (IndexedData indexedData : data.getIndexedData()) {
+                    if (indexedData instanceof SimpleIndexedPropertyValue value && value.getValue() != null) {
+                        // getKeyPrefix() is "<keyspace>:<property>"; IndexWriter adds the ':' before the value
+                        String indexKey = indexedData.getKeyPrefix() + ":" + value.getValue();
+                        pipeline.sadd(indexKey, data.getId());
+                        indexKeys.add(indexKey);
+                    }
+                }
+                if (!indexKeys.isEmpty()) {
+                    pipeline.sadd(key + ":idx", indexKeys.toArray(String[]::new));
+                }
+            }
+            pipeline.sync();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
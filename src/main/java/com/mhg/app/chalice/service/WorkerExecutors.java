@@ -0,0 +1,44 @@
+package com.mhg.app.chalice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out the worker executors used by services and loaders. With
+ * {@code spring.threads.virtual.enabled=true} (which also moves Tomcat request handling onto
+ * virtual threads) every executor is virtual-thread-per-task; otherwise it is a fixed pool of
+ * platform threads. Bounded executors keep a fixed number of threads of either kind in front of a
+ * fixed-size queue, for work whose concurrency has to stay capped in both modes.
+ */
+@Component
+public class WorkerExecutors {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    public ExecutorService newExecutor(String name, int platformThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(platformThreads, new CustomizableThreadFactory(name + "-"));
+    }
+
+    // fixed worker count and queue capacity; submit throws RejectedExecutionException once the queue is full
+    public ThreadPoolExecutor newBoundedExecutor(String name, int threads, int queueCapacity) {
+        ThreadFactory threadFactory = virtualThreads ? Thread.ofVirtual().name(name + "-", 0).factory() : new CustomizableThreadFactory(name + "-");
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), //
+                threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+}
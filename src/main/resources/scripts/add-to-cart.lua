@@ -0,0 +1,59 @@
+-- Atomically adds an item to a cart, merging quantities when the ISBN is already present, and
+-- moves the stored $.total / $.itemCount by the same delta.
+-- KEYS[1] = cart JSON document, ARGV[1] = isbn, ARGV[2] = price, ARGV[3] = quantity
+-- Returns { stored item JSON, new cart total } or nil if the cart does not exist.
+-- Arguments are checked before any write: Redis does not roll back a script that fails halfway.
+local quantity = tonumber(ARGV[3])
+if quantity == nil or quantity < 1 then
+    return redis.error_reply('ERR quantity must be at least 1')
+end
+-- a book without a price is added at 0
+local newPrice = tonumber(ARGV[2]) or 0
+
+local raw = redis.call('JSON.GET', KEYS[1], '$.cartItems')
+if not raw then
+    return nil
+end
+
+local items = cjson.decode(raw)[1]
+if type(items) ~= 'table' then
+    redis.call('JSON.SET', KEYS[1], '$.cartItems', '[]')
+    items = {}
+end
+
+-- carts written before the totals existed get them computed once
+local stored = cjson.decode(redis.call('JSON.GET', KEYS[1], '$.total'))[1]
+if stored == nil or stored == cjson.null then
+    local sum = 0
+    for _, item in ipairs(items) do
+        sum = sum + (tonumber(item['price']) or 0) * (tonumber(item['quantity']) or 0)
+    end
+    redis.call('JSON.SET', KEYS[1], '$.total', tostring(sum))
+    redis.call('JSON.SET', KEYS[1], '$.itemCount', tostring(#items))
+end
+
+local index = -1
+for i, item in ipairs(items) do
+    if item['isbn'] == ARGV[1] then
+        index = i - 1
+        break
+    end
+end
+
+local path
+local price
+if index >= 0 then
+    path = '$.cartItems[' .. index .. ']'
+    price = tonumber(items[index + 1]['price']) or 0
+    redis.call('JSON.NUMINCRBY', KEYS[1], path .. '.quantity', quantity)
+else
+    path = '$.cartItems[' .. #items .. ']'
+    price = newPrice
+    local item = { isbn = ARGV[1], price = price, quantity = quantity }
+    redis.call('JSON.ARRAPPEND', KEYS[1], '$.cartItems', cjson.encode(item))
+    redis.call('JSON.NUMINCRBY', KEYS[1], '$.itemCount', 1)
+end
+
+local total = cjson.decode(redis.call('JSON.NUMINCRBY', KEYS[1], '$.total', price * quantity))[1]
+local item = cjson.decode(redis.call('JSON.GET', KEYS[1], path))[1]
+return { cjson.encode(item), tostring(total) }
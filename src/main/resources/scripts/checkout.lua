@@ -0,0 +1,36 @@
+-- Atomically moves the books of a cart into the user's library and empties the cart,
+-- resetting its stored $.total / $.itemCount.
+-- KEYS[1] = user hash (Spring Data "User:<id>"), KEYS[2] = cart JSON document
+-- ARGV    = ISBNs to add to the user's books
+-- Returns the number of new references appended, or -1 if the user does not exist.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+
+local fields = redis.call('HGETALL', KEYS[1])
+local owned = {}
+local nextIndex = 0
+for i = 1, #fields, 2 do
+    local index = string.match(fields[i], '^books%.%[(%d+)%]$')
+    if index then
+        owned[fields[i + 1]] = true
+        if tonumber(index) >= nextIndex then
+            nextIndex = tonumber(index) + 1
+        end
+    end
+end
+
+local added = 0
+for i = 1, #ARGV do
+    if not owned[ARGV[i]] then
+        redis.call('HSET', KEYS[1], 'books.[' .. nextIndex .. ']', ARGV[i])
+        owned[ARGV[i]] = true
+        nextIndex = nextIndex + 1
+        added = added + 1
+    end
+end
+
+redis.call('JSON.SET', KEYS[2], '$.cartItems', '[]')
+redis.call('JSON.SET', KEYS[2], '$.total', '0')
+redis.call('JSON.SET', KEYS[2], '$.itemCount', '0')
+return added
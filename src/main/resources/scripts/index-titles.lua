@@ -0,0 +1,13 @@
+-- Adds books stored before the title index existed, without overriding what book writes maintain.
+-- KEYS[1] = title index (sorted set), KEYS[2] = hash of isbn -> title index member
+-- ARGV    = isbn, title index member, ...
+-- A book that already has a member was written since its title was read; it is left alone.
+-- Returns the number of books added.
+local added = 0
+for i = 1, #ARGV, 2 do
+    if redis.call('HSETNX', KEYS[2], ARGV[i], ARGV[i + 1]) == 1 then
+        redis.call('ZADD', KEYS[1], 0, ARGV[i + 1])
+        added = added + 1
+    end
+end
+return added
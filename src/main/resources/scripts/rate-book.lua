@@ -0,0 +1,28 @@
+-- Stores a user's rating of a book and folds it into the book's aggregate in the same atomic step.
+-- KEYS[1] = rating hash (Spring Data "BookRating:<id>", one id per user and book), KEYS[2] = BookRating id set,
+-- KEYS[3] = book aggregate hash (BookRatingStats:<isbn>), KEYS[4] = top-rated sorted set
+-- ARGV[1] = rating id, ARGV[2] = isbn, ARGV[3] = stars, ARGV[4..] = rating hash field/value pairs
+-- A user rating the same book again replaces their previous stars instead of adding a rating, so
+-- count, sum and histogram only ever hold one rating per user. Returns the book's new average as a string.
+local stars = tonumber(ARGV[3])
+local previous = tonumber(redis.call('HGET', KEYS[1], 'rating'))
+redis.call('HSET', KEYS[1], unpack(ARGV, 4))
+redis.call('SADD', KEYS[2], ARGV[1])
+
+local count, sum
+if previous and redis.call('HEXISTS', KEYS[3], 'count') == 1 then
+    count = tonumber(redis.call('HGET', KEYS[3], 'count'))
+    sum = redis.call('HINCRBY', KEYS[3], 'sum', stars - previous)
+    if previous ~= stars then
+        redis.call('HINCRBY', KEYS[3], 'stars:' .. previous, -1)
+        redis.call('HINCRBY', KEYS[3], 'stars:' .. stars, 1)
+    end
+else
+    count = redis.call('HINCRBY', KEYS[3], 'count', 1)
+    sum = redis.call('HINCRBY', KEYS[3], 'sum', stars)
+    redis.call('HINCRBY', KEYS[3], 'stars:' .. stars, 1)
+end
+
+local average = sum / count
+redis.call('ZADD', KEYS[4], average, ARGV[2])
+return tostring(average)
@@ -0,0 +1,43 @@
+-- Atomically removes the first cart item matching an ISBN and moves the stored
+-- $.total / $.itemCount by the same delta.
+-- KEYS[1] = cart JSON document, ARGV[1] = isbn
+-- Returns { removed item JSON, new cart total } or nil if the cart or the ISBN is missing.
+local raw = redis.call('JSON.GET', KEYS[1], '$.cartItems')
+if not raw then
+    return nil
+end
+
+local items = cjson.decode(raw)[1]
+if type(items) ~= 'table' then
+    return nil
+end
+
+-- carts written before the totals existed get them computed once
+local stored = cjson.decode(redis.call('JSON.GET', KEYS[1], '$.total'))[1]
+if stored == nil or stored == cjson.null then
+    local sum = 0
+    for _, item in ipairs(items) do
+        sum = sum + (tonumber(item['price']) or 0) * (tonumber(item['quantity']) or 0)
+    end
+    redis.call('JSON.SET', KEYS[1], '$.total', tostring(sum))
+    redis.call('JSON.SET', KEYS[1], '$.itemCount', tostring(#items))
+end
+
+local index = -1
+for i, item in ipairs(items) do
+    if item['isbn'] == ARGV[1] then
+        index = i - 1
+        break
+    end
+end
+
+if index < 0 then
+    return nil
+end
+
+local removed = redis.call('JSON.ARRPOP', KEYS[1], '$.cartItems', index)[1]
+local item = cjson.decode(removed)
+local delta = (tonumber(item['price']) or 0) * (tonumber(item['quantity']) or 0)
+redis.call('JSON.NUMINCRBY', KEYS[1], '$.itemCount', -1)
+local total = cjson.decode(redis.call('JSON.NUMINCRBY', KEYS[1], '$.total', -delta))[1]
+return { removed, tostring(total) }
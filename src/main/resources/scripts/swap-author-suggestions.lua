@@ -0,0 +1,16 @@
+-- Swaps a rebuilt author suggester in, unless book writes changed author counts while it was built.
+-- KEYS[1] = author count change counter, KEYS[2] = rebuilt suggestion dictionary, KEYS[3] = rebuilt counts hash,
+-- KEYS[4] = live suggestion dictionary, KEYS[5] = live counts hash, KEYS[6] = completion marker
+-- ARGV[1] = change counter read before the rebuild started, ARGV[2] = number of distinct authors
+-- Returns 1 when swapped, 0 when the rebuild is stale and has to be redone.
+if (redis.call('GET', KEYS[1]) or '0') ~= ARGV[1] then
+    return 0
+end
+if ARGV[2] == '0' then
+    redis.call('DEL', KEYS[4], KEYS[5])
+else
+    redis.call('RENAME', KEYS[2], KEYS[4])
+    redis.call('RENAME', KEYS[3], KEYS[5])
+end
+redis.call('SET', KEYS[6], ARGV[2])
+return 1
@@ -0,0 +1,88 @@
+-- Writes (or deletes) books together with everything derived from them in one atomic step.
+-- KEYS[1] = Book id set, KEYS[2] = title index (sorted set), KEYS[3] = hash of isbn -> title index member,
+-- KEYS[4] = author suggestion dictionary, KEYS[5] = hash of author -> number of books by that author,
+-- KEYS[6] = counter bumped whenever author counts change, KEYS[7] = catalog version counter,
+-- KEYS[7 + n] = Book:<isbn> of the n-th book
+-- ARGV[1] = catalog version channel, ARGV[2] = near cache invalidation channel,
+-- ARGV[3] = invalidation message (the ISBN, or * for a bulk write),
+-- ARGV[4..] = isbn, document JSON, title index member, ... (one triple per book, in key order);
+--             an empty document deletes the book
+-- Each book's previous authors and title member are read right before it is replaced, so the author
+-- counts and the title index move by exactly what changed, however many writers touch the same book.
+-- A key still holding a legacy hash is replaced as if it were absent. The catalog version bump and
+-- both notifications ride along, so a book write is this one call. Returns the new catalog version.
+local FIXED_KEYS = 7
+local FIXED_ARGS = 3
+local deltas = {}
+
+-- every distinct, non-blank author once
+local function count(authors, delta)
+    if type(authors) ~= 'table' then
+        return
+    end
+    local seen = {}
+    for _, author in ipairs(authors) do
+        if type(author) == 'string' and string.find(author, '%S') and not seen[author] then
+            seen[author] = true
+            deltas[author] = (deltas[author] or 0) + delta
+        end
+    end
+end
+
+-- JSON.GET with a $ path replies '[[...]]', or '[]' when the document has no authors
+local function storedAuthors(key)
+    local keyType = redis.call('TYPE', key)['ok']
+    if keyType ~= 'ReJSON-RL' then
+        if keyType ~= 'none' then
+            redis.call('DEL', key)
+        end
+        return nil
+    end
+    return cjson.decode(redis.call('JSON.GET', key, '$.authors'))[1]
+end
+
+local books = #KEYS - FIXED_KEYS
+for n = 1, books do
+    local key = KEYS[FIXED_KEYS + n]
+    local arg = FIXED_ARGS + 3 * (n - 1)
+    local isbn, document, member = ARGV[arg + 1], ARGV[arg + 2], ARGV[arg + 3]
+    count(storedAuthors(key), -1)
+    local previous = redis.call('HGET', KEYS[3], isbn)
+    if previous and previous ~= member then
+        redis.call('ZREM', KEYS[2], previous)
+    end
+    if document == '' then
+        redis.call('DEL', key)
+        redis.call('SREM', KEYS[1], isbn)
+        redis.call('HDEL', KEYS[3], isbn)
+    else
+        count(cjson.decode(document)['authors'], 1)
+        redis.call('JSON.SET', key, '$', document)
+        redis.call('SADD', KEYS[1], isbn)
+        redis.call('ZADD', KEYS[2], 0, member)
+        redis.call('HSET', KEYS[3], isbn, member)
+    end
+end
+
+-- the suggestion score is the author's book count, so prolific authors rank first; at zero it is removed
+local changed = false
+for author, delta in pairs(deltas) do
+    if delta ~= 0 then
+        changed = true
+        local total = redis.call('HINCRBY', KEYS[5], author, delta)
+        if total <= 0 then
+            redis.call('HDEL', KEYS[5], author)
+            redis.call('FT.SUGDEL', KEYS[4], author)
+        else
+            redis.call('FT.SUGADD', KEYS[4], author, total)
+        end
+    end
+end
+if changed then
+    redis.call('INCR', KEYS[6])
+end
+
+local version = redis.call('INCR', KEYS[7])
+redis.call('PUBLISH', ARGV[1], version)
+redis.call('PUBLISH', ARGV[2], ARGV[3])
+return version
@@ -0,0 +1,47 @@
+package com.mhg.app.chalice.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookRepositoryTest {
+
+    @Test
+    void ordersTitleMembersCaseInsensitivelyWithIsbnTieBreak() {
+        List<String> members = new ArrayList<>(List.of( //
+                BookRepository.titleMember("redis in Action", "2"), //
+                BookRepository.titleMember("Redis in Action", "1"), //
+                BookRepository.titleMember("Java Concurrency", "3"), //
+                BookRepository.titleMember(null, "4")));
+        Collections.sort(members);
+
+        assertThat(members).containsExactly("\0" + "4", "java concurrency\0" + "3", "redis in action\0" + "1", "redis in action\0" + "2");
+    }
+
+    @Test
+    void roundTripsTokens() {
+        for (String member : List.of(BookRepository.titleMember("Redis in Action", "9781617290855"), //
+                BookRepository.titleMember("Ünïcödé / ? & = +", "1"), //
+                BookRepository.titleMember(null, "2"))) {
+            String token = BookRepository.encodeToken(member);
+
+            assertThat(token).matches("[A-Za-z0-9_-]+");
+            assertThat(BookRepository.decodeToken(token)).isEqualTo(member);
+        }
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThatThrownBy(() -> BookRepository.decodeToken("not base64!")) //
+                .isInstanceOf(IllegalArgumentException.class) //
+                .hasMessage("Malformed cursor token");
+        assertThatThrownBy(() -> BookRepository.decodeToken(BookRepository.encodeToken("no separator"))) //
+                .isInstanceOf(IllegalArgumentException.class) //
+                .hasMessage("Malformed cursor token");
+    }
+}
@@ -0,0 +1,118 @@
+package com.mhg.app.chalice.serialization;
+
+import com.mhg.app.chalice.service.SearchResultCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactRedisSerializerTest {
+
+    @Test
+    void roundTripsEveryFormatWithAndWithoutCompression() {
+        SearchResultCache.Entry entry = entry(100);
+        for (ValueFormat format : ValueFormat.values()) {
+            for (int compressThreshold : new int[] { -1, 0 }) {
+                CompactRedisSerializer serializer = new CompactRedisSerializer(format, compressThreshold);
+                assertThat(serializer.deserialize(serializer.serialize(entry))) //
+                        .as("%s, compressThreshold %d", format, compressThreshold) //
+                        .isEqualTo(entry);
+            }
+        }
+    }
+
+    @Test
+    void writesFormatAndFlagsInTheHeader() {
+        SearchResultCache.Entry entry = entry(100);
+        for (ValueFormat format : ValueFormat.values()) {
+            byte[] plain = new CompactRedisSerializer(format, -1).serialize(entry);
+            assertThat(plain).startsWith(CompactRedisSerializer.MAGIC, CompactRedisSerializer.HEADER_VERSION, format.id(), (byte) 0);
+
+            byte[] compressed = new CompactRedisSerializer(format, 0).serialize(entry);
+            assertThat(compressed).startsWith(CompactRedisSerializer.MAGIC, CompactRedisSerializer.HEADER_VERSION, format.id(), CompactRedisSerializer.FLAG_LZ4);
+            assertThat(compressed.length).isLessThan(plain.length);
+        }
+    }
+
+    @Test
+    void leavesSmallValuesUncompressed() {
+        byte[] bytes = new CompactRedisSerializer(ValueFormat.SMILE, 1024).serialize(entry(1));
+
+        assertThat(bytes[3]).isZero();
+    }
+
+    @Test
+    void readsTheFormatFromTheHeaderNotTheConfiguration() {
+        SearchResultCache.Entry entry = entry(10);
+        byte[] smile = new CompactRedisSerializer(ValueFormat.SMILE, 0).serialize(entry);
+
+        assertThat(new CompactRedisSerializer(ValueFormat.JSON, -1).deserialize(smile)).isEqualTo(entry);
+    }
+
+    @Test
+    void readsLegacyJdkValuesWithoutHeader() {
+        SearchResultCache.Entry entry = entry(10);
+        byte[] legacy = new JdkSerializationRedisSerializer().serialize(entry);
+
+        assertThat(new CompactRedisSerializer(ValueFormat.SMILE, 0).deserialize(legacy)).isEqualTo(entry);
+    }
+
+    @Test
+    void mapsNullToEmptyAndBack() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(ValueFormat.SMILE, 0);
+
+        assertThat(serializer.serialize(null)).isEmpty();
+        assertThat(serializer.deserialize(new byte[0])).isNull();
+        assertThat(serializer.deserialize(null)).isNull();
+    }
+
+    @Test
+    void rejectsValuesWithoutKnownHeader() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(ValueFormat.SMILE, 0);
+
+        assertThatThrownBy(() -> serializer.deserialize(new byte[] { '{', '}' })).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(new byte[] { CompactRedisSerializer.MAGIC, 2, 3, 0 })) //
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(new byte[] { CompactRedisSerializer.MAGIC, CompactRedisSerializer.HEADER_VERSION, 42, 0 })) //
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(new byte[] { CompactRedisSerializer.MAGIC, CompactRedisSerializer.HEADER_VERSION })) //
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void rejectsLz4LengthsBeforeAllocating() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(ValueFormat.SMILE, 0);
+
+        assertThatThrownBy(() -> serializer.deserialize(lz4Value(Integer.MAX_VALUE, 16))).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(lz4Value(-1, 16))).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(lz4Value(1_000_000, 16))).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(lz4Value(64, 16))).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.deserialize(new byte[] { CompactRedisSerializer.MAGIC, CompactRedisSerializer.HEADER_VERSION, //
+                ValueFormat.SMILE.id(), CompactRedisSerializer.FLAG_LZ4, 0 })).isInstanceOf(SerializationException.class);
+    }
+
+    // LZ4 header claiming uncompressedLength, followed by compressedLength bytes of garbage
+    private static byte[] lz4Value(int uncompressedLength, int compressedLength) {
+        return ByteBuffer.allocate(4 + Integer.BYTES + compressedLength) //
+                .put(CompactRedisSerializer.MAGIC).put(CompactRedisSerializer.HEADER_VERSION) //
+                .put(ValueFormat.SMILE.id()).put(CompactRedisSerializer.FLAG_LZ4) //
+                .putInt(uncompressedLength) //
+                .array();
+    }
+
+    private static SearchResultCache.Entry entry(int hits) {
+        List<String> isbns = new ArrayList<>(hits);
+        List<Double> scores = new ArrayList<>(hits);
+        for (int i = 0; i < hits; i++) {
+            isbns.add("97801338444" + String.format("%02d", i % 100));
+            scores.add(1.0 / (i + 1));
+        }
+        return new SearchResultCache.Entry(hits * 10L, isbns, scores);
+    }
+}
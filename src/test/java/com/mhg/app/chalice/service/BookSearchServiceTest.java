@@ -0,0 +1,115 @@
+package com.mhg.app.chalice.service;
+
+import com.mhg.app.chalice.model.BookSearchRequest;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.args.Rawable;
+import redis.clients.jedis.search.FTSearchParams;
+import redis.clients.jedis.search.SearchProtocol;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookSearchServiceTest {
+
+    @Test
+    void matchesEverythingWithoutQueryOrFilters() {
+        assertThat(BookSearchService.buildQuery(BookSearchRequest.builder().build())).isEqualTo("*");
+        assertThat(BookSearchService.buildQuery(BookSearchRequest.builder().query("  ").build())).isEqualTo("*");
+        assertThat(BookSearchService.buildQuery(BookSearchRequest.builder().query(" * ").build())).isEqualTo("*");
+    }
+
+    @Test
+    void combinesQueryAndFilters() {
+        BookSearchRequest request = BookSearchRequest.builder() //
+                .query(" redis ") //
+                .category("java") //
+                .author("Josiah L. Carlson") //
+                .language("en") //
+                .minPrice(10.0) //
+                .maxPrice(49.99) //
+                .build();
+
+        assertThat(BookSearchService.buildQuery(request)) //
+                .isEqualTo("(redis) @categories:{java} @authors:{Josiah\\ L\\.\\ Carlson} @language:{en} @price:[10.0 49.99]");
+    }
+
+    @Test
+    void leavesOpenPriceBoundsInfinite() {
+        assertThat(BookSearchService.buildQuery(BookSearchRequest.builder().minPrice(5.0).build())).isEqualTo("@price:[5.0 +inf]");
+        assertThat(BookSearchService.buildQuery(BookSearchRequest.builder().maxPrice(5.0).build())).isEqualTo("@price:[-inf 5.0]");
+    }
+
+    @Test
+    void escapesTagPunctuation() {
+        BookSearchRequest request = BookSearchRequest.builder().category(" C++ / C# ").build();
+
+        assertThat(BookSearchService.buildQuery(request)).isEqualTo("@categories:{C\\+\\+\\ \\/\\ C\\#}");
+    }
+
+    @Test
+    void projectsListingFieldsByDefault() {
+        List<String> args = args(BookSearchService.buildParams(BookSearchRequest.builder().limit(10).build()));
+
+        assertThat(args).containsSubsequence("RETURN", "title", "$.authors", "AS", "authors", "price", "$.currency", "AS", "currency", //
+                "$.thumbnail", "AS", "thumbnail");
+        assertThat(args).containsSubsequence("LIMIT", "0", "10");
+        assertThat(args).containsSubsequence("TIMEOUT", "5000");
+        assertThat(args).containsSubsequence("DIALECT", "2");
+        assertThat(args).doesNotContain("SORTBY", "HIGHLIGHT", "SUMMARIZE");
+    }
+
+    @Test
+    void addsSortHighlightAndSummary() {
+        BookSearchRequest request = BookSearchRequest.builder() //
+                .fields(List.of("title", "price")) //
+                .sortBy("price") //
+                .descending(true) //
+                .offset(20) //
+                .limit(5) //
+                .highlight(true) //
+                .summarize(true) //
+                .build();
+
+        List<String> args = args(BookSearchService.buildParams(request));
+
+        assertThat(args).containsSubsequence("RETURN", "title", "price", "description");
+        assertThat(args).containsSubsequence("SORTBY", "price", "DESC");
+        assertThat(args).containsSubsequence("LIMIT", "20", "5");
+        assertThat(args).containsSubsequence("HIGHLIGHT", "FIELDS", "title", "description", "TAGS", "<b>", "</b>");
+        assertThat(args).containsSubsequence("SUMMARIZE", "FIELDS", "description");
+    }
+
+    @Test
+    void skipsHighlightWithoutTextFields() {
+        BookSearchRequest request = BookSearchRequest.builder().fields(List.of("price")).limit(10).highlight(true).build();
+
+        assertThat(args(BookSearchService.buildParams(request))).doesNotContain("HIGHLIGHT");
+    }
+
+    @Test
+    void rejectsInvalidParams() {
+        assertThatThrownBy(() -> BookSearchService.buildParams(BookSearchRequest.builder().offset(-1).limit(10).build())) //
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BookSearchService.buildParams(BookSearchRequest.builder().limit(BookSearchService.MAX_LIMIT + 1).build())) //
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BookSearchService.buildParams(BookSearchRequest.builder().fields(List.of("isbn")).limit(10).build())) //
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BookSearchService.buildParams(BookSearchRequest.builder().sortBy("description").limit(10).build())) //
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // the FT.SEARCH arguments the params render to, without the command itself
+    private static List<String> args(FTSearchParams params) {
+        CommandArguments arguments = new CommandArguments(SearchProtocol.SearchCommand.SEARCH).addParams(params);
+        List<String> args = new ArrayList<>();
+        for (Rawable argument : arguments) {
+            args.add(SafeEncoder.encode(argument.getRaw()));
+        }
+        return args.subList(1, args.size());
+    }
+}
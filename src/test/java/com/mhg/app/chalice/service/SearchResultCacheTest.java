@@ -0,0 +1,51 @@
+package com.mhg.app.chalice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+    @Test
+    void normalizesPlainTermsToLowerCaseSortedSet() {
+        assertThat(SearchResultCache.normalize("  Redis   in\tAction ")).isEqualTo("action in redis");
+        assertThat(SearchResultCache.normalize("action in redis")).isEqualTo(SearchResultCache.normalize("Redis IN action"));
+        assertThat(SearchResultCache.normalize("Prog* java")).isEqualTo("java prog*");
+        assertThat(SearchResultCache.normalize("O'Reilly")).isEqualTo("o'reilly");
+    }
+
+    @Test
+    void keepsCaseAndOrderOfQuerySyntax() {
+        assertThat(SearchResultCache.normalize("@categories:{Java}  Redis")).isEqualTo("@categories:{Java} Redis");
+        assertThat(SearchResultCache.normalize("\"Redis in Action\"")).isEqualTo("\"Redis in Action\"");
+        assertThat(SearchResultCache.normalize("Redis -Java")).isEqualTo("Redis -Java");
+        assertThat(SearchResultCache.normalize("Redis | Java")).isEqualTo("Redis | Java");
+    }
+
+    @Test
+    void normalizesEmptyQueriesToMatchAll() {
+        assertThat(SearchResultCache.normalize(null)).isEqualTo("*");
+        assertThat(SearchResultCache.normalize("")).isEqualTo("*");
+        assertThat(SearchResultCache.normalize(" \t ")).isEqualTo("*");
+    }
+
+    @Test
+    void classifiesQueryShapes() {
+        assertThat(SearchResultCache.shapeOf("*")).isEqualTo("all");
+        assertThat(SearchResultCache.shapeOf("redis")).isEqualTo("terms:1");
+        assertThat(SearchResultCache.shapeOf("in redis")).isEqualTo("terms:2");
+        assertThat(SearchResultCache.shapeOf("action in redis")).isEqualTo("terms:3+");
+        assertThat(SearchResultCache.shapeOf("a b c d")).isEqualTo("terms:3+");
+        assertThat(SearchResultCache.shapeOf("prog*")).isEqualTo("terms:1:prefix");
+        assertThat(SearchResultCache.shapeOf("java prog*")).isEqualTo("terms:2:prefix");
+        assertThat(SearchResultCache.shapeOf("@categories:{Java} Redis")).isEqualTo("fielded");
+        assertThat(SearchResultCache.shapeOf("\"Redis in Action\"")).isEqualTo("phrase");
+        assertThat(SearchResultCache.shapeOf("Redis -Java")).isEqualTo("complex");
+    }
+
+    @Test
+    void classifiesNormalizedQueries() {
+        assertThat(SearchResultCache.shapeOf(SearchResultCache.normalize("   "))).isEqualTo("all");
+        assertThat(SearchResultCache.shapeOf(SearchResultCache.normalize("Redis  Action"))).isEqualTo("terms:2");
+    }
+}